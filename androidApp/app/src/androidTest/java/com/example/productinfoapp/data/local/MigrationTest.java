@@ -0,0 +1,119 @@
+package com.example.productinfoapp.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+// Walks a version 3 database with real rows through every migration, one step
+// at a time, validating each step against the exported schema in schemas/
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+    private static final int FIRST_VERSION = 3;
+    private static final int LATEST_VERSION = 10;
+
+    // Noon UTC, so all of the first day's scans share a local day in any time zone
+    private static final long DAY_ONE = 1704888000000L;
+    private static final long HOUR = 3600000L;
+    private static final long DAY_TWO = DAY_ONE + 24 * HOUR;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    @Test
+    public void migratesEveryVersionFrom3() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, FIRST_VERSION);
+        db.execSQL("INSERT INTO products (id, barcode, name, score, calculatedScore, isOrganic, "
+                + "calories, sugar, fat, saturatedFat, salt, protein, fiber, servingSize) "
+                + "VALUES ('p1', '111', 'Oat milk', 60, 60, 0, 100, 10, 3, 2, 1, 1, 1, 100)");
+        db.execSQL("INSERT INTO products (id, barcode, name, score, calculatedScore, isOrganic) "
+                + "VALUES ('p2', '222', 'Rye bread', 70, 70, 1)");
+        // Three scans of 111 (the middle one a favorite), one of 222, one without a barcode
+        insertScan(db, 1, "'111'", "'b'", 0, DAY_ONE);
+        insertScan(db, 2, "'111'", "'b'", 1, DAY_ONE + HOUR);
+        insertScan(db, 3, "'222'", "NULL", 0, DAY_ONE + 2 * HOUR);
+        insertScan(db, 4, "'111'", "'b'", 0, DAY_TWO);
+        insertScan(db, 5, "NULL", "NULL", 0, DAY_TWO);
+        db.close();
+
+        for (int version = FIRST_VERSION + 1; version <= LATEST_VERSION; version++) {
+            db = helper.runMigrationsAndValidate(TEST_DB, version, true, AppDatabase.MIGRATIONS);
+            if (version == 8) checkFoldedHistory(db);
+            if (version == 9) checkNutritionBackfill(db);
+            db.close();
+        }
+    }
+
+    private static void insertScan(SupportSQLiteDatabase db, int id, String barcode, String grade,
+                                   int favorite, long scannedAt) {
+        db.execSQL("INSERT INTO scan_history (id, barcode, productName, healthScore, nutriScoreGrade, "
+                + "isOrganic, isFavorite, scannedAt) VALUES (" + id + ", " + barcode + ", 'Product', 50, "
+                + grade + ", 0, " + favorite + ", " + scannedAt + ")");
+    }
+
+    // 7 -> 8: duplicates fold into the newest row per barcode, every scan becomes an event
+    private static void checkFoldedHistory(SupportSQLiteDatabase db) {
+        try (Cursor c = db.query("SELECT id, barcode, isFavorite, scannedAt, firstScannedAt, scanCount "
+                + "FROM scan_history ORDER BY id")) {
+            assertEquals(3, c.getCount());
+
+            assertTrue(c.moveToNext());
+            assertEquals(3, c.getInt(0));
+            assertEquals(1, c.getInt(5));
+            assertEquals(DAY_ONE + 2 * HOUR, c.getLong(4));
+
+            assertTrue(c.moveToNext());
+            assertEquals(4, c.getInt(0));
+            assertEquals("111", c.getString(1));
+            assertEquals(1, c.getInt(2)); // A favorite if any folded row was
+            assertEquals(DAY_TWO, c.getLong(3));
+            assertEquals(DAY_ONE, c.getLong(4));
+            assertEquals(3, c.getInt(5));
+
+            assertTrue(c.moveToNext());
+            assertEquals(5, c.getInt(0));
+            assertTrue(c.isNull(1));
+            assertEquals(DAY_TWO, c.getLong(4));
+        }
+        try (Cursor c = db.query("SELECT COUNT(*) FROM scan_events")) {
+            assertTrue(c.moveToNext());
+            assertEquals(4, c.getInt(0));
+        }
+    }
+
+    // 8 -> 9: events take the cached nutrition, and daily totals are built from them
+    private static void checkNutritionBackfill(SupportSQLiteDatabase db) {
+        try (Cursor c = db.query("SELECT day, scans, scansWithNutrition, calories, sugar, salt, "
+                + "saturatedFat, gradeB, gradeUnknown FROM nutrition_daily ORDER BY day")) {
+            assertEquals(2, c.getCount());
+
+            assertTrue(c.moveToNext());
+            assertEquals(NutritionDailyEntity.dayOf(DAY_ONE), c.getInt(0));
+            assertEquals(3, c.getInt(1));
+            assertEquals(2, c.getInt(2));
+            assertEquals(200, c.getDouble(3), 0.001);
+            assertEquals(20, c.getDouble(4), 0.001);
+            assertEquals(2, c.getDouble(5), 0.001);
+            assertEquals(4, c.getDouble(6), 0.001);
+            assertEquals(2, c.getInt(7));
+            assertEquals(1, c.getInt(8));
+
+            assertTrue(c.moveToNext());
+            assertEquals(NutritionDailyEntity.dayOf(DAY_TWO), c.getInt(0));
+            assertEquals(1, c.getInt(1));
+            assertEquals(1, c.getInt(2));
+            assertEquals(100, c.getDouble(3), 0.001);
+            assertEquals(1, c.getInt(7));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.productinfoapp.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.example.productinfoapp.data.api.ApiService;
+import com.example.productinfoapp.data.api.RetrofitClient;
+import com.example.productinfoapp.data.local.AppDatabase;
+import com.example.productinfoapp.data.local.ProductEntity;
+import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductChangesResponse;
+import com.example.productinfoapp.util.AppExecutors;
+import com.google.gson.Gson;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import retrofit2.mock.Calls;
+
+// Runs the sync engine against a stand-in /products/changes feed: the stubbed
+// getChanges serves canned pages and records the cursor it was called with.
+@RunWith(AndroidJUnit4.class)
+public class ProductSyncEngineTest {
+    private final Gson gson = RetrofitClient.createGson();
+    private final Deque<ProductChangesResponse> pages = new ArrayDeque<>();
+    private final List<String> cursors = new ArrayList<>();
+
+    private AppDatabase db;
+    private ProductSyncEngine engine;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        ApiService api = (ApiService) Proxy.newProxyInstance(ApiService.class.getClassLoader(),
+                new Class<?>[] {ApiService.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("getChanges")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    cursors.add(args[0] + "/" + args[1]);
+                    return Calls.response(pages.remove());
+                });
+        engine = new ProductSyncEngine(context, db, api, AppExecutors.getInstance());
+        engine.reset();
+    }
+
+    @After
+    public void tearDown() {
+        engine.reset();
+        db.close();
+    }
+
+    @Test
+    public void appliesUpdatesAndTombstonesToStoredProductsOnly() throws Exception {
+        db.productDao().insertAll(Arrays.asList(
+                entity("{\"_id\":\"a\",\"barcode\":\"100\",\"name\":\"Oat milk\"}"),
+                entity("{\"_id\":\"b\",\"barcode\":\"200\",\"name\":\"Rye bread\"}")));
+
+        // Page 1: an insert of a product this device never cached, and an update
+        pages.add(page("{\"products\":["
+                + "{\"_id\":\"c\",\"barcode\":\"300\",\"name\":\"Not cached here\"},"
+                + "{\"_id\":\"a\",\"barcode\":\"100\",\"name\":\"Oat milk, barista\"}],"
+                + "\"deleted\":[],\"nextSince\":1000,\"nextAfterId\":\"a\",\"hasMore\":true}"));
+        // Page 2: a tombstone
+        pages.add(page("{\"products\":[],\"deleted\":[\"b\"],"
+                + "\"nextSince\":2000,\"nextAfterId\":\"b\",\"hasMore\":false}"));
+
+        assertEquals(2, engine.sync());
+
+        ProductEntity updated = db.productDao().getProductByIdSync("a");
+        assertNotNull(updated);
+        assertEquals("Oat milk, barista", updated.name);
+        assertNull(db.productDao().getProductByIdSync("b"));
+        assertNull(db.productDao().getProductByIdSync("c"));
+
+        // The second page was requested from the cursor the first one returned
+        assertEquals(2, cursors.size());
+        assertEquals("1000/a", cursors.get(1));
+        assertEquals(0, pages.size());
+    }
+
+    @Test
+    public void skipsSyncWhenNothingIsCached() {
+        assertEquals(0, engine.sync());
+        assertEquals(0, cursors.size());
+    }
+
+    private ProductEntity entity(String json) {
+        return new ProductEntity(gson.fromJson(json, Product.class));
+    }
+
+    private ProductChangesResponse page(String json) {
+        return gson.fromJson(json, ProductChangesResponse.class);
+    }
+}
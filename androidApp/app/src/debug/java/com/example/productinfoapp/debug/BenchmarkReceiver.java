@@ -0,0 +1,42 @@
+package com.example.productinfoapp.debug;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+import com.example.productinfoapp.util.AppExecutors;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+// Runs the on-device benchmarks in a debug build and writes the report to
+// files/json_benchmark.txt (the wire format part needs a reachable backend):
+//   adb shell am broadcast -n com.example.productinfoapp/.debug.BenchmarkReceiver
+public class BenchmarkReceiver extends BroadcastReceiver {
+    private static final String TAG = "BenchmarkReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        PendingResult pending = goAsync();
+        File output = new File(context.getFilesDir(), "json_benchmark.txt");
+        AppExecutors.getInstance().compute().execute(() -> {
+            try {
+                String report = new JsonParseBenchmark().run();
+                try {
+                    report += new WireFormatBenchmark().run();
+                } catch (IOException e) {
+                    report += "Wire format benchmark skipped: " + e.getMessage() + "\n";
+                }
+                Log.i(TAG, report);
+                try (Writer writer = new FileWriter(output, false)) {
+                    writer.write(report);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Benchmark failed", e);
+            } finally {
+                pending.finish();
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.productinfoapp.debug;
+
+import android.os.Debug;
+import com.example.productinfoapp.data.api.RetrofitClient;
+import com.example.productinfoapp.data.model.ProductListResponse;
+import com.google.gson.Gson;
+import java.util.Locale;
+
+// Parse time and allocations for a 100-product list response, reflective Gson
+// against the app's streaming adapters (RetrofitClient.createGson). The payload
+// mirrors the backend's: enriched products plus the fields the app ignores.
+public class JsonParseBenchmark {
+    private static final int PRODUCTS = 100;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    public String run() {
+        String json = buildPayload();
+        Gson reflective = new Gson();
+        Gson streaming = RetrofitClient.createGson();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%d products, %d bytes, %d iterations%n",
+                PRODUCTS, json.length(), ITERATIONS));
+        report.append(measure("reflective", reflective, json));
+        report.append(measure("streaming", streaming, json));
+        return report.toString();
+    }
+
+    @SuppressWarnings("deprecation") // Alloc counting is still the cheapest per-thread allocation counter
+    private String measure(String label, Gson gson, String json) {
+        for (int i = 0; i < WARMUP; i++) {
+            gson.fromJson(json, ProductListResponse.class);
+        }
+        System.gc();
+
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            gson.fromJson(json, ProductListResponse.class);
+        }
+        long elapsed = System.nanoTime() - started;
+        Debug.stopAllocCounting();
+
+        return String.format(Locale.ROOT, "%-10s %8.2f ms/parse %10d allocs/parse %10d bytes/parse%n",
+                label, elapsed / 1e6 / ITERATIONS,
+                Debug.getThreadAllocCount() / ITERATIONS, Debug.getThreadAllocSize() / ITERATIONS);
+    }
+
+    static String buildPayload() {
+        StringBuilder json = new StringBuilder("{\"products\":[");
+        for (int i = 0; i < PRODUCTS; i++) {
+            if (i > 0) json.append(',');
+            json.append(String.format(Locale.ROOT, "{\"_id\":\"65a1b2c3d4e5f6a7b8c9%04x\","
+                    + "\"barcode\":\"30176204%05d\",\"name\":\"Product %d\",\"brand\":\"Brand %d\","
+                    + "\"category\":\"spreads\",\"imageUrl\":\"https://images.example.com/%d.jpg\","
+                    + "\"ingredients\":\"sugar, palm oil, hazelnuts, skimmed milk powder, cocoa\","
+                    + "\"score\":%d,\"calculatedScore\":%d,\"isOrganic\":%b,\"nutriScore\":\"%s\","
+                    + "\"nutriScoreGrade\":\"%s\",\"scoreCategory\":{\"label\":\"Poor\",\"color\":\"#FF9800\"},"
+                    + "\"nutrition\":{\"calories\":539,\"sugar\":56.3,\"fat\":30.9,\"saturatedFat\":10.6,"
+                    + "\"salt\":0.107,\"protein\":6.3,\"fiber\":0,\"servingSize\":15,\"servingUnit\":\"g\"},"
+                    + "\"additives\":[{\"code\":\"E322\",\"name\":\"Lecithins\",\"riskLevel\":\"none\"},"
+                    + "{\"code\":\"E476\",\"name\":\"Polyglycerol polyricinoleate\",\"riskLevel\":\"limited\"}],"
+                    + "\"createdAt\":\"2024-01-15T10:00:00.000Z\",\"updatedAt\":\"2024-02-01T08:30:00.000Z\","
+                    + "\"__v\":0,\"id\":\"65a1b2c3d4e5f6a7b8c9%04x\"}",
+                    i, i, i, i % 20, i, i % 100, (i * 7) % 100, i % 3 == 0,
+                    "ABCDE".substring(i % 5, i % 5 + 1), "ABCDE".substring(i % 5, i % 5 + 1), i));
+        }
+        json.append("],\"total\":1000,\"limit\":100,\"offset\":0,\"hasMore\":true}");
+        return json.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.productinfoapp.debug;
+
+import android.os.Debug;
+import com.example.productinfoapp.data.api.RetrofitClient;
+import com.example.productinfoapp.data.model.ProductListResponse;
+import com.example.productinfoapp.data.model.ProductPack;
+import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// Fetches the same 100-product page from the backend as JSON and as a product
+// pack, then reports transfer size and decode time and allocations for each.
+// Needs a reachable backend; the page is real data, not a synthetic payload.
+public class WireFormatBenchmark {
+    private static final String PAGE = "products?limit=100";
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private interface Decoder {
+        ProductListResponse decode(byte[] body) throws IOException;
+    }
+
+    public String run() throws IOException {
+        OkHttpClient client = new OkHttpClient();
+        byte[] json = fetch(client, "application/json");
+        byte[] pack = fetch(client, ProductPack.CONTENT_TYPE);
+        Gson gson = RetrofitClient.createGson();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%s: json %d bytes, pack %d bytes (%.1fx smaller), %d iterations%n",
+                PAGE, json.length, pack.length, json.length / (double) pack.length, ITERATIONS));
+        report.append(measure("json", json, body -> {
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)) {
+                return gson.fromJson(reader, ProductListResponse.class);
+            }
+        }));
+        report.append(measure("pack", pack, ProductPack::readList));
+        return report.toString();
+    }
+
+    private static byte[] fetch(OkHttpClient client, String accept) throws IOException {
+        Request request = new Request.Builder()
+                .url(RetrofitClient.getBaseUrl() + PAGE)
+                .header("Accept", accept)
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("GET " + PAGE + " failed: " + response.code());
+            }
+            return response.body().bytes();
+        }
+    }
+
+    @SuppressWarnings("deprecation") // Same counters as JsonParseBenchmark
+    private static String measure(String label, byte[] body, Decoder decoder) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            decoder.decode(body);
+        }
+        System.gc();
+
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decoder.decode(body);
+        }
+        long elapsed = System.nanoTime() - started;
+        Debug.stopAllocCounting();
+
+        return String.format(Locale.ROOT, "%-10s %8.2f ms/decode %10d allocs/decode %10d bytes/decode%n",
+                label, elapsed / 1e6 / ITERATIONS,
+                Debug.getThreadAllocCount() / ITERATIONS, Debug.getThreadAllocSize() / ITERATIONS);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.productinfoapp;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.productinfoapp.data.api.RetrofitClient;
+import java.io.InputStream;
+
+// Loads images over OkHttp instead of HttpURLConnection, so image downloads go
+// through RequestScheduler as its lowest class and give way to scans
+@GlideModule
+public class ProductGlideModule extends AppGlideModule {
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.replace(GlideUrl.class, InputStream.class,
+                new OkHttpUrlLoader.Factory(RetrofitClient.getImageClient()));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.productinfoapp;
+
+import android.app.Application;
+import android.util.Log;
+import com.example.productinfoapp.data.api.NetworkMetrics;
+import com.example.productinfoapp.data.api.RequestScheduler;
+import com.example.productinfoapp.data.api.RetrofitClient;
+import com.example.productinfoapp.util.AppExecutors;
+import java.io.File;
+import java.io.IOException;
+
+public class ProductInfoApp extends Application {
+    private static final String TAG = "ProductInfoApp";
+    public static final String NETWORK_METRICS_FILE = "network_metrics.txt";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Before any screen asks for the ApiService, so every call goes through the cache
+        RetrofitClient.init(this);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // The app just went to the background: a good point to report the session
+        if (level == TRIM_MEMORY_UI_HIDDEN) {
+            Log.d(TAG, RetrofitClient.getCacheStats().toString());
+            Log.d(TAG, "Circuit breakers: " + RetrofitClient.getResilience().getBreakerStates());
+            Log.d(TAG, RequestScheduler.getInstance().toString());
+            File file = new File(getFilesDir(), NETWORK_METRICS_FILE);
+            AppExecutors.getInstance().diskIO().execute(() -> {
+                try {
+                    NetworkMetrics.getInstance().dumpToFile(file);
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not write network metrics", e);
+                }
+            });
+        }
+    }
+}
@@ -1,26 +1,62 @@
 package com.example.productinfoapp.data.api;
 
 import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductBatchRequest;
+import com.example.productinfoapp.data.model.ProductBatchResponse;
+import com.example.productinfoapp.data.model.ProductChangesResponse;
 import com.example.productinfoapp.data.model.ProductListResponse;
+import com.example.productinfoapp.data.model.ProductSummary;
+import com.example.productinfoapp.data.model.ProductSummaryListResponse;
 import java.util.List;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
+import retrofit2.http.Body;
 import retrofit2.http.GET;
+import retrofit2.http.POST;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
+// Each method declares its RequestScheduler class with RequestPriority.Of
 public interface ApiService {
     @GET("products")
+    @RequestPriority.Of(RequestPriority.PREFETCH)
     Call<ProductListResponse> getProducts(@Query("limit") int limit, @Query("offset") int offset);
 
+    // List screens only need the summary fields; detail loads the full product
+    @GET("products?view=summary")
+    @RequestPriority.Of(RequestPriority.PREFETCH)
+    Call<ProductSummaryListResponse> getProductSummaries(@Query("limit") int limit, @Query("offset") int offset);
+
     @GET("products/{id}")
+    @RequestPriority.Of(RequestPriority.DETAIL)
     Call<Product> getProductById(@Path("id") String id);
 
     @GET("products/barcode/{code}")
+    @RequestPriority.Of(RequestPriority.SCAN)
     Call<Product> getProductByBarcode(@Path("code") String barcode);
 
+    // At most ProductBatcher.MAX_BATCH_SIZE ids and barcodes together
+    @POST("products/batch")
+    @RequestPriority.Of(RequestPriority.PREFETCH)
+    Call<ProductBatchResponse> getProductsBatch(@Body ProductBatchRequest request);
+
+    @Streaming
+    @GET("products/barcode-index")
+    @RequestPriority.Of(RequestPriority.PREFETCH)
+    Call<ResponseBody> getBarcodeIndex();
+
+    @GET("products/changes")
+    @RequestPriority.Of(RequestPriority.PREFETCH)
+    Call<ProductChangesResponse> getChanges(@Query("since") long since,
+                                            @Query("afterId") String afterId,
+                                            @Query("limit") int limit);
+
     @GET("products/{id}/alternatives")
+    @RequestPriority.Of(RequestPriority.ALTERNATIVES)
     Call<List<Product>> getAlternatives(@Path("id") String id);
 
-    @GET("products/search/{query}")
-    Call<List<Product>> searchProducts(@Path("query") String query);
+    @GET("products/search/{query}?view=summary")
+    @RequestPriority.Of(RequestPriority.DETAIL)
+    Call<List<ProductSummary>> searchProducts(@Path("query") String query);
 }
@@ -0,0 +1,18 @@
+package com.example.productinfoapp.data.api;
+
+import java.io.IOException;
+
+// Thrown instead of calling an endpoint whose circuit breaker is open. It is an
+// IOException, so OfflineCacheInterceptor answers from the disk cache if it can.
+public class CircuitOpenException extends IOException {
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(String endpoint, long retryAfterMillis) {
+        super("Circuit open for " + endpoint + ", retry in " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
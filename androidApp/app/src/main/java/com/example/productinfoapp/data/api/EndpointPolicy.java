@@ -0,0 +1,64 @@
+package com.example.productinfoapp.data.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Timeouts and retry budget for one endpoint, keyed like NetworkMetrics
+// ("GET /products/barcode/:code"). Scans get short timeouts and a single quick
+// retry because the scanner has local fallbacks; bulk downloads can wait longer.
+public final class EndpointPolicy {
+    public final int connectTimeoutMillis;
+    public final int readTimeoutMillis;
+    public final int writeTimeoutMillis;
+    // Including the first try; only safe (read-only) requests are retried
+    public final int maxAttempts;
+    public final long baseBackoffMillis;
+    public final long maxBackoffMillis;
+    private final boolean retryUnsafeMethods;
+
+    static final EndpointPolicy DEFAULT = new EndpointPolicy(5000, 10000, 10000, 2, 250, 2000, false);
+
+    private static final Map<String, EndpointPolicy> POLICIES = new HashMap<>();
+
+    static {
+        POLICIES.put("GET /products/barcode/:code", new EndpointPolicy(2000, 3000, 3000, 2, 100, 400, false));
+        POLICIES.put("GET /products/:id", new EndpointPolicy(3000, 5000, 5000, 3, 200, 1500, false));
+        POLICIES.put("GET /products/:id/alternatives", new EndpointPolicy(3000, 5000, 5000, 2, 200, 1500, false));
+        // Superseded by the next keystroke soon enough; a retry would only arrive late
+        POLICIES.put("GET /products/search/:query", new EndpointPolicy(3000, 5000, 5000, 1, 0, 0, false));
+        POLICIES.put("GET /products", new EndpointPolicy(5000, 10000, 10000, 3, 250, 2000, false));
+        // A POST, but a read: it changes nothing on the server
+        POLICIES.put("POST /products/batch", new EndpointPolicy(3000, 10000, 5000, 2, 250, 1000, true));
+        POLICIES.put("GET /products/changes", new EndpointPolicy(5000, 15000, 10000, 3, 500, 4000, false));
+        POLICIES.put("GET /products/barcode-index", new EndpointPolicy(5000, 30000, 10000, 3, 1000, 8000, false));
+    }
+
+    public EndpointPolicy(int connectTimeoutMillis, int readTimeoutMillis, int writeTimeoutMillis,
+                          int maxAttempts, long baseBackoffMillis, long maxBackoffMillis,
+                          boolean retryUnsafeMethods) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryUnsafeMethods = retryUnsafeMethods;
+    }
+
+    public static EndpointPolicy forEndpoint(String key) {
+        EndpointPolicy policy = POLICIES.get(key);
+        return policy != null ? policy : DEFAULT;
+    }
+
+    public int attemptsFor(String method) {
+        boolean safe = "GET".equals(method) || "HEAD".equals(method);
+        return safe || retryUnsafeMethods ? maxAttempts : 1;
+    }
+
+    // Full jitter: uniformly random up to the exponential cap for this attempt
+    public long backoffMillis(int attempt, double random) {
+        if (baseBackoffMillis <= 0) return 0;
+        long cap = baseBackoffMillis << Math.min(attempt - 1, 16);
+        return (long) (Math.min(cap, maxBackoffMillis) * random);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.productinfoapp.data.api;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Wraps an idempotent call: if it hasn't answered within delayMillis, an
+// identical second call is started and whichever answers first is delivered,
+// the other being cancelled. This trims the slow tail of latency-critical
+// lookups (barcode scans) for the price of a duplicate request on that tail.
+// A failure is only reported once no attempt is left running. Callbacks come
+// on the main thread, like Retrofit's; execute() is not hedged.
+public class HedgedCall<T> implements Call<T> {
+    // Shared by all hedged calls, see ProductLookup
+    public static class Stats {
+        private final AtomicLong hedged = new AtomicLong();
+        private final AtomicLong hedgeWins = new AtomicLong();
+
+        public long getHedgedCount() { return hedged.get(); }
+        public long getHedgeWinCount() { return hedgeWins.get(); }
+    }
+
+    private final Call<T> primary;
+    private final long delayMillis;
+    private final Stats stats;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Main thread only
+    private Call<T> hedge;
+    private boolean delivered = false;
+    private int running = 0;
+    private Runnable startHedge;
+
+    private volatile boolean executed = false;
+    private volatile boolean canceled = false;
+
+    public HedgedCall(Call<T> primary, long delayMillis, Stats stats) {
+        this.primary = primary;
+        this.delayMillis = delayMillis;
+        this.stats = stats;
+    }
+
+    @Override
+    public void enqueue(Callback<T> callback) {
+        if (executed) throw new IllegalStateException("Already executed.");
+        executed = true;
+        mainHandler.post(() -> {
+            if (canceled) {
+                callback.onFailure(this, new IOException("Canceled"));
+                return;
+            }
+            startHedge = () -> {
+                if (delivered || canceled) return;
+                hedge = primary.clone();
+                stats.hedged.incrementAndGet();
+                start(hedge, callback);
+            };
+            start(primary, callback);
+            mainHandler.postDelayed(startHedge, delayMillis);
+        });
+    }
+
+    private void start(Call<T> call, Callback<T> callback) {
+        running++;
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> c, Response<T> response) {
+                running--;
+                if (delivered) return;
+                delivered = true;
+                mainHandler.removeCallbacks(startHedge);
+                if (call == hedge) {
+                    stats.hedgeWins.incrementAndGet();
+                    primary.cancel();
+                } else if (hedge != null) {
+                    hedge.cancel();
+                }
+                callback.onResponse(HedgedCall.this, response);
+            }
+
+            @Override
+            public void onFailure(Call<T> c, Throwable t) {
+                running--;
+                if (delivered || running > 0) return;
+                delivered = true;
+                mainHandler.removeCallbacks(startHedge);
+                callback.onFailure(HedgedCall.this, t);
+            }
+        });
+    }
+
+    @Override
+    public Response<T> execute() throws IOException {
+        executed = true;
+        return primary.execute();
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return executed;
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        primary.cancel();
+        mainHandler.post(() -> {
+            if (startHedge != null) mainHandler.removeCallbacks(startHedge);
+            if (hedge != null) hedge.cancel();
+        });
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public Call<T> clone() {
+        return new HedgedCall<>(primary.clone(), delayMillis, stats);
+    }
+
+    @Override
+    public Request request() {
+        return primary.request();
+    }
+
+    @Override
+    public Timeout timeout() {
+        return primary.timeout();
+    }
+}
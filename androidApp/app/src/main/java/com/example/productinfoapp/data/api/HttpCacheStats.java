@@ -0,0 +1,53 @@
+package com.example.productinfoapp.data.api;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+// Classifies every response by how the OkHttp cache answered it: served from
+// disk without a request (hit), revalidated with a 304 (conditional hit), or
+// downloaded in full (miss). Must be an application interceptor to see both sides.
+public class HttpCacheStats implements Interceptor {
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong conditionalHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        Response network = response.networkResponse();
+        if (response.cacheResponse() != null && network == null) {
+            hits.incrementAndGet();
+        } else if (network != null && network.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            conditionalHits.incrementAndGet();
+        } else {
+            // Includes revalidations answered with a changed 200, which OkHttp
+            // also reports with a cacheResponse
+            misses.incrementAndGet();
+        }
+        return response;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getConditionalHits() { return conditionalHits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    public double getHitRatio() { return ratio(hits.get()); }
+    public double getConditionalHitRatio() { return ratio(conditionalHits.get()); }
+    public double getMissRatio() { return ratio(misses.get()); }
+
+    private double ratio(long count) {
+        long total = hits.get() + conditionalHits.get() + misses.get();
+        return total > 0 ? (double) count / total : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "HTTP cache: hits=%d (%.0f%%), conditional=%d (%.0f%%), misses=%d (%.0f%%)",
+                getHits(), getHitRatio() * 100, getConditionalHits(), getConditionalHitRatio() * 100,
+                getMisses(), getMissRatio() * 100);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.productinfoapp.data.api;
+
+import androidx.annotation.NonNull;
+import com.example.productinfoapp.util.LatencyHistogram;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// Per-endpoint network metrics from OkHttp call events: latency histograms for
+// DNS, connect, time to first byte and the whole call, response sizes, cache
+// answers and errors. Endpoints are keyed by method and path template
+// ("GET /products/:id"), so ids and queries don't each get their own entry.
+public class NetworkMetrics implements EventListener.Factory {
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+    private static final Pattern OBJECT_ID = Pattern.compile("[0-9a-fA-F]{24}");
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public static NetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public static class EndpointStats {
+        public final LatencyHistogram total = new LatencyHistogram();
+        public final LatencyHistogram dns = new LatencyHistogram();
+        public final LatencyHistogram connect = new LatencyHistogram();
+        public final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong cancelled = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+        private final AtomicLong maxResponseBytes = new AtomicLong();
+
+        public long getCalls() { return calls.get(); }
+        public long getErrors() { return errors.get(); }
+        public long getCacheHits() { return cacheHits.get(); }
+        public long getCancelled() { return cancelled.get(); }
+        public long getResponseBytes() { return responseBytes.get(); }
+        public long getMaxResponseBytes() { return maxResponseBytes.get(); }
+
+        public double getErrorRate() {
+            long n = calls.get();
+            return n > 0 ? (double) errors.get() / n : 0;
+        }
+
+        public double getAverageResponseBytes() {
+            long n = calls.get();
+            return n > 0 ? (double) responseBytes.get() / n : 0;
+        }
+
+        void recordBytes(long bytes) {
+            responseBytes.addAndGet(bytes);
+            long max;
+            do {
+                max = maxResponseBytes.get();
+            } while (bytes > max && !maxResponseBytes.compareAndSet(max, bytes));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "calls=%d errors=%.1f%% cancelled=%d cacheHits=%d avgBytes=%.0f maxBytes=%d%n"
+                            + "  total: %s%n  dns: %s%n  connect: %s%n  ttfb: %s",
+                    getCalls(), getErrorRate() * 100, getCancelled(), getCacheHits(), getAverageResponseBytes(),
+                    getMaxResponseBytes(), total, dns, connect, timeToFirstByte);
+        }
+    }
+
+    @NonNull
+    @Override
+    public EventListener create(@NonNull Call call) {
+        return new CallMetrics(statsFor(call.request()));
+    }
+
+    public Map<String, EndpointStats> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    public EndpointStats getEndpoint(String key) {
+        return endpoints.get(key);
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, EndpointStats> entry : getEndpoints().entrySet()) {
+            out.append(entry.getKey()).append('\n').append("  ").append(entry.getValue()).append('\n');
+        }
+        return out.toString();
+    }
+
+    // Blocking; writes the current metrics as text, replacing the file
+    public void dumpToFile(File file) throws IOException {
+        try (Writer writer = new FileWriter(file, false)) {
+            writer.write(dump());
+        }
+    }
+
+    private EndpointStats statsFor(Request request) {
+        String key = endpointKey(request);
+        EndpointStats stats = endpoints.get(key);
+        if (stats == null) {
+            endpoints.putIfAbsent(key, new EndpointStats());
+            stats = endpoints.get(key);
+        }
+        return stats;
+    }
+
+    // The key a request's stats are kept under, also used by EndpointPolicy
+    public static String endpointKey(Request request) {
+        return request.method() + " " + endpointPath(request.url().encodedPathSegments());
+    }
+
+    // /products/65a1.../alternatives -> /products/:id/alternatives
+    static String endpointPath(List<String> segments) {
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.isEmpty()) continue;
+            path.append('/');
+            if (i > 0 && "search".equals(segments.get(i - 1))) {
+                path.append(":query");
+            } else if (i > 0 && "barcode".equals(segments.get(i - 1))) {
+                path.append(":code");
+            } else if (OBJECT_ID.matcher(segment).matches()) {
+                path.append(":id");
+            } else {
+                path.append(segment);
+            }
+        }
+        return path.length() > 0 ? path.toString() : "/";
+    }
+
+    // One per call; OkHttp delivers a call's events sequentially
+    private static class CallMetrics extends EventListener {
+        private final EndpointStats stats;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long requestStart;
+        private boolean firstByteSeen;
+        private boolean serverError;
+        private long bytes;
+
+        CallMetrics(EndpointStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> addresses) {
+            stats.dns.record(System.nanoTime() - dnsStart);
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy, Protocol protocol) {
+            stats.connect.record(System.nanoTime() - connectStart);
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            if (!firstByteSeen) {
+                firstByteSeen = true;
+                stats.timeToFirstByte.record(System.nanoTime() - requestStart);
+            }
+        }
+
+        @Override
+        public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+            // 4xx are answers (e.g. an unknown barcode), only server errors count
+            if (response.code() >= 500) serverError = true;
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            bytes += byteCount;
+        }
+
+        @Override
+        public void cacheHit(@NonNull Call call, @NonNull Response response) {
+            stats.cacheHits.incrementAndGet();
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            finish(serverError);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            // Superseded searches and losing hedges are cancelled on purpose: not
+            // errors, and their cut-short durations would skew the latency p95
+            if (call.isCanceled()) {
+                stats.cancelled.incrementAndGet();
+                return;
+            }
+            finish(true);
+        }
+
+        // Once per call, however many responses (e.g. retried 5xx) it saw
+        private void finish(boolean failed) {
+            if (failed) stats.errors.incrementAndGet();
+            stats.calls.incrementAndGet();
+            stats.total.record(System.nanoTime() - callStart);
+            stats.recordBytes(bytes);
+        }
+    }
+}
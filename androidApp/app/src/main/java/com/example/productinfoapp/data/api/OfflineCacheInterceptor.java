@@ -0,0 +1,30 @@
+package com.example.productinfoapp.data.api;
+
+import java.io.IOException;
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// When a GET fails at the network level, retries it from the disk cache only,
+// whatever its age, so screens still render the last response while offline.
+// Only the original error is reported if nothing is cached.
+public class OfflineCacheInterceptor implements Interceptor {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        try {
+            return chain.proceed(request);
+        } catch (IOException e) {
+            if (!"GET".equals(request.method()) || chain.call().isCanceled()) throw e;
+            Response cached = chain.proceed(request.newBuilder()
+                    .cacheControl(CacheControl.FORCE_CACHE)
+                    .build());
+            if (cached.code() == 504) { // "Unsatisfiable Request (only-if-cached)"
+                cached.close();
+                throw e;
+            }
+            return cached;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.productinfoapp.data.api;
+
+import com.example.productinfoapp.data.model.ProductPack;
+import java.io.IOException;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// Asks for the compact product encoding, with JSON as the fallback, on every
+// request that does not set its own Accept. The backend only packs product
+// responses and answers everything else (and old deployments answer
+// everything) with JSON, which ProductPackConverterFactory passes through.
+public class PackAcceptInterceptor implements Interceptor {
+    static final String ACCEPT = ProductPack.CONTENT_TYPE + ", application/json;q=0.9";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.header("Accept") != null) return chain.proceed(request);
+        return chain.proceed(request.newBuilder().header("Accept", ACCEPT).build());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.productinfoapp.data.api;
+
+import android.os.Handler;
+import android.os.Looper;
+import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductBatchRequest;
+import com.example.productinfoapp.data.model.ProductBatchResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Collects product lookups made within a short window and sends them as one
+// POST /products/batch, flushing early once MAX_BATCH_SIZE keys are waiting.
+// Repeated keys in a window share one slot. Callbacks run on the main thread.
+public class ProductBatcher {
+    public interface ProductCallback {
+        // product is null when the backend has no match for the key
+        void onResult(Product product);
+        void onFailure(Throwable t);
+    }
+
+    // The backend accepts up to 200; smaller batches keep responses quick to parse
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final long WINDOW_MILLIS = 30;
+
+    private static volatile ProductBatcher INSTANCE;
+
+    private final ApiService apiService;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = this::flush;
+    private final Object lock = new Object();
+    private Map<String, List<ProductCallback>> pendingIds = new LinkedHashMap<>();
+    private Map<String, List<ProductCallback>> pendingBarcodes = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong keys = new AtomicLong();
+
+    ProductBatcher(ApiService apiService) {
+        this.apiService = apiService;
+    }
+
+    public static ProductBatcher getInstance() {
+        if (INSTANCE == null) {
+            synchronized (ProductBatcher.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ProductBatcher(RetrofitClient.getApiService());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public void getById(String id, ProductCallback callback) {
+        add(true, id, callback);
+    }
+
+    public void getByBarcode(String barcode, ProductCallback callback) {
+        add(false, barcode, callback);
+    }
+
+    private void add(boolean byId, String key, ProductCallback callback) {
+        boolean full;
+        synchronized (lock) {
+            Map<String, List<ProductCallback>> pending = byId ? pendingIds : pendingBarcodes;
+            List<ProductCallback> waiters = pending.get(key);
+            if (waiters == null) {
+                waiters = new ArrayList<>();
+                pending.put(key, waiters);
+            }
+            waiters.add(callback);
+            full = pendingIds.size() + pendingBarcodes.size() >= MAX_BATCH_SIZE;
+            if (!full && !flushScheduled) {
+                flushScheduled = true;
+                handler.postDelayed(flushTask, WINDOW_MILLIS);
+            }
+        }
+        if (full) flush();
+    }
+
+    // Sends whatever is waiting now instead of at the end of the window
+    public void flush() {
+        Map<String, List<ProductCallback>> ids;
+        Map<String, List<ProductCallback>> barcodes;
+        synchronized (lock) {
+            handler.removeCallbacks(flushTask);
+            flushScheduled = false;
+            if (pendingIds.isEmpty() && pendingBarcodes.isEmpty()) return;
+            ids = pendingIds;
+            barcodes = pendingBarcodes;
+            pendingIds = new LinkedHashMap<>();
+            pendingBarcodes = new LinkedHashMap<>();
+        }
+        send(ids, barcodes);
+    }
+
+    private void send(Map<String, List<ProductCallback>> ids, Map<String, List<ProductCallback>> barcodes) {
+        batches.incrementAndGet();
+        keys.addAndGet(ids.size() + barcodes.size());
+        ProductBatchRequest request = new ProductBatchRequest(
+                new ArrayList<>(ids.keySet()), new ArrayList<>(barcodes.keySet()));
+        apiService.getProductsBatch(request).enqueue(new Callback<ProductBatchResponse>() {
+            @Override
+            public void onResponse(Call<ProductBatchResponse> call, Response<ProductBatchResponse> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    fail(ids, barcodes, new IOException("Batch request failed: " + response.code()));
+                    return;
+                }
+                Map<String, Product> byId = new HashMap<>();
+                Map<String, Product> byBarcode = new HashMap<>();
+                List<Product> products = response.body().getProducts();
+                if (products != null) {
+                    for (Product product : products) {
+                        if (product.getId() != null) byId.put(product.getId(), product);
+                        if (product.getBarcode() != null) byBarcode.put(product.getBarcode(), product);
+                    }
+                }
+                deliver(ids, byId);
+                deliver(barcodes, byBarcode);
+            }
+
+            @Override
+            public void onFailure(Call<ProductBatchResponse> call, Throwable t) {
+                fail(ids, barcodes, t);
+            }
+        });
+    }
+
+    private static void deliver(Map<String, List<ProductCallback>> waiters, Map<String, Product> results) {
+        for (Map.Entry<String, List<ProductCallback>> entry : waiters.entrySet()) {
+            Product product = results.get(entry.getKey());
+            for (ProductCallback callback : entry.getValue()) {
+                callback.onResult(product);
+            }
+        }
+    }
+
+    private static void fail(Map<String, List<ProductCallback>> ids,
+                             Map<String, List<ProductCallback>> barcodes, Throwable t) {
+        for (List<ProductCallback> callbacks : ids.values()) {
+            for (ProductCallback callback : callbacks) callback.onFailure(t);
+        }
+        for (List<ProductCallback> callbacks : barcodes.values()) {
+            for (ProductCallback callback : callbacks) callback.onFailure(t);
+        }
+    }
+
+    public long getBatchCount() { return batches.get(); }
+    public long getKeyCount() { return keys.get(); }
+}
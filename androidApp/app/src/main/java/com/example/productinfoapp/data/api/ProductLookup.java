@@ -0,0 +1,75 @@
+package com.example.productinfoapp.data.api;
+
+import com.example.productinfoapp.data.model.Product;
+import retrofit2.Call;
+import retrofit2.Callback;
+
+// App-wide entry point for single product lookups. Concurrent requests for the
+// same id or barcode share one Retrofit call (see RequestCoalescer). Barcode
+// lookups block the scanner, so by default they are hedged (see HedgedCall)
+// after the endpoint's measured p95.
+public class ProductLookup {
+    private static volatile ProductLookup INSTANCE;
+
+    private static final String BARCODE_ENDPOINT = "GET /products/barcode/:code";
+    // Until enough calls were timed for a meaningful p95
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 300;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+    private static final long MAX_HEDGE_DELAY_MILLIS = 2000;
+    private static final long MIN_SAMPLES = 20;
+
+    private final RequestCoalescer<Product> byId;
+    private final RequestCoalescer<Product> byBarcode;
+    private final HedgedCall.Stats hedgeStats = new HedgedCall.Stats();
+    private volatile boolean hedgingEnabled = true;
+
+    private ProductLookup(ApiService apiService) {
+        byId = new RequestCoalescer<>(apiService::getProductById);
+        byBarcode = new RequestCoalescer<>(barcode -> {
+            Call<Product> call = apiService.getProductByBarcode(barcode);
+            return hedgingEnabled ? new HedgedCall<>(call, getHedgeDelayMillis(), hedgeStats) : call;
+        });
+    }
+
+    public static ProductLookup getInstance() {
+        if (INSTANCE == null) {
+            synchronized (ProductLookup.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ProductLookup(RetrofitClient.getApiService());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public void getProductById(String id, Callback<Product> callback) {
+        byId.enqueue(id, callback);
+    }
+
+    public void getProductByBarcode(String barcode, Callback<Product> callback) {
+        byBarcode.enqueue(barcode, callback);
+    }
+
+    public void setHedgingEnabled(boolean enabled) {
+        hedgingEnabled = enabled;
+    }
+
+    public long getHedgeDelayMillis() {
+        NetworkMetrics.EndpointStats stats = NetworkMetrics.getInstance().getEndpoint(BARCODE_ENDPOINT);
+        if (stats == null || stats.total.getCount() < MIN_SAMPLES) return DEFAULT_HEDGE_DELAY_MILLIS;
+        long p95 = (long) stats.total.getPercentileMillis(95);
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, Math.min(MAX_HEDGE_DELAY_MILLIS, p95));
+    }
+
+    public HedgedCall.Stats getHedgeStats() {
+        return hedgeStats;
+    }
+
+    public long getIssuedCount() {
+        return byId.getIssuedCount() + byBarcode.getIssuedCount();
+    }
+
+    public long getCoalescedCount() {
+        return byId.getCoalescedCount() + byBarcode.getCoalescedCount();
+    }
+}
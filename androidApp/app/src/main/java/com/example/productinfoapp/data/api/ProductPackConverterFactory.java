@@ -0,0 +1,65 @@
+package com.example.productinfoapp.data.api;
+
+import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductBatchResponse;
+import com.example.productinfoapp.data.model.ProductListResponse;
+import com.example.productinfoapp.data.model.ProductPack;
+import com.example.productinfoapp.data.model.ProductSummary;
+import com.example.productinfoapp.data.model.ProductSummaryListResponse;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+// Decodes product responses sent in the compact pack format (see ProductPack)
+// and hands everything else to the next converter, so a backend or cached
+// response that is still JSON keeps working. Register before the Gson factory.
+public class ProductPackConverterFactory extends Converter.Factory {
+    private interface Decoder<T> {
+        T decode(byte[] data) throws IOException;
+    }
+
+    public static ProductPackConverterFactory create() {
+        return new ProductPackConverterFactory();
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        Decoder<?> decoder = decoderFor(type);
+        if (decoder == null) return null;
+        Converter<ResponseBody, ?> json = retrofit.nextResponseBodyConverter(this, type, annotations);
+        return body -> {
+            if (!isPack(body.contentType())) return json.convert(body);
+            try {
+                return decoder.decode(body.bytes());
+            } finally {
+                body.close();
+            }
+        };
+    }
+
+    private static Decoder<?> decoderFor(Type type) {
+        if (type == ProductListResponse.class) return ProductPack::readList;
+        if (type == ProductBatchResponse.class) return ProductPack::readBatch;
+        if (type == ProductSummaryListResponse.class) return ProductPack::readSummaryList;
+        if (type == Product.class) return ProductPack::readProduct;
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type[] args = parameterized.getActualTypeArguments();
+            if (parameterized.getRawType() != List.class || args.length != 1) return null;
+            if (args[0] == Product.class) return ProductPack::readProducts;
+            if (args[0] == ProductSummary.class) return ProductPack::readSummaries;
+        }
+        return null;
+    }
+
+    static boolean isPack(MediaType contentType) {
+        return contentType != null
+                && ProductPack.CONTENT_TYPE.equals(contentType.type() + "/" + contentType.subtype());
+    }
+}
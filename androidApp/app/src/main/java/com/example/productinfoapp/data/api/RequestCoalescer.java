@@ -0,0 +1,75 @@
+package com.example.productinfoapp.data.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Single-flight wrapper around a keyed Retrofit call: while a request for a key
+// is in flight, further callers for the same key wait on it instead of firing
+// their own call, and all of them receive the same result.
+public class RequestCoalescer<T> {
+    public interface CallFactory<T> {
+        Call<T> create(String key);
+    }
+
+    private final CallFactory<T> callFactory;
+    private final Map<String, List<Callback<T>>> inFlight = new HashMap<>();
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public RequestCoalescer(CallFactory<T> callFactory) {
+        this.callFactory = callFactory;
+    }
+
+    public void enqueue(String key, Callback<T> callback) {
+        synchronized (inFlight) {
+            List<Callback<T>> waiters = inFlight.get(key);
+            if (waiters != null) {
+                waiters.add(callback);
+                coalesced.incrementAndGet();
+                return;
+            }
+            waiters = new ArrayList<>();
+            waiters.add(callback);
+            inFlight.put(key, waiters);
+        }
+
+        issued.incrementAndGet();
+        callFactory.create(key).enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                for (Callback<T> waiter : complete(key)) {
+                    waiter.onResponse(call, response);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                for (Callback<T> waiter : complete(key)) {
+                    waiter.onFailure(call, t);
+                }
+            }
+        });
+    }
+
+    public boolean isInFlight(String key) {
+        synchronized (inFlight) {
+            return inFlight.containsKey(key);
+        }
+    }
+
+    public long getIssuedCount() { return issued.get(); }
+    public long getCoalescedCount() { return coalesced.get(); }
+
+    private List<Callback<T>> complete(String key) {
+        synchronized (inFlight) {
+            List<Callback<T>> waiters = inFlight.remove(key);
+            return waiters != null ? waiters : new ArrayList<>();
+        }
+    }
+}
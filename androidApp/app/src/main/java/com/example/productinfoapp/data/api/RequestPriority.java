@@ -0,0 +1,41 @@
+package com.example.productinfoapp.data.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Scheduling classes for RequestScheduler, highest priority first. Each has its
+// own concurrency limit; maxQueueMillis bounds how long a deferred request may
+// wait before it is cancelled (0 = never).
+public enum RequestPriority {
+    // The scanner is waiting on it
+    SCAN(4, 0),
+    // A screen the user is looking at: detail, search
+    DETAIL(3, 0),
+    ALTERNATIVES(2, 0),
+    // List pages, sync, batch refreshes, the barcode index
+    PREFETCH(2, 15_000),
+    IMAGE(4, 10_000);
+
+    public final int maxConcurrent;
+    public final long maxQueueMillis;
+
+    RequestPriority(int maxConcurrent, long maxQueueMillis) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueueMillis = maxQueueMillis;
+    }
+
+    // Held back entirely while interactive (SCAN) requests are running or waiting
+    public boolean isBackground() {
+        return compareTo(PREFETCH) >= 0;
+    }
+
+    // Declares an ApiService method's class; read from the Invocation tag that
+    // Retrofit attaches to each request. Unannotated methods are PREFETCH.
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Of {
+        RequestPriority value();
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.productinfoapp.data.api;
+
+import androidx.annotation.NonNull;
+import com.example.productinfoapp.util.LatencyHistogram;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Invocation;
+
+// Admission control for all app traffic, API and images alike, so a scan never
+// queues behind image downloads or list refreshes. Every request belongs to a
+// RequestPriority class and waits here until:
+//   - its class is under its concurrency limit,
+//   - no higher class has requests waiting, and
+//   - for background classes, no SCAN request is running or waiting, and fewer
+//     than MAX_BACKGROUND requests are running overall.
+// A request holds its slot until its response body is read or closed, so the
+// limits cover downloads, not just waiting for headers. Requests that are
+// already running are left alone. Background requests
+// deferred past their class's maxQueueMillis are failed with an IOException,
+// which their callers already treat like any network error. The OkHttp
+// dispatcher's per-host limit is raised (see RetrofitClient) so waiting happens
+// here, in priority order, rather than in the dispatcher's FIFO queue.
+// It is a network interceptor: answers from the HTTP cache never wait for a
+// slot, and every attempt takes its own, so a retry's backoff holds none.
+public class RequestScheduler {
+    private static final RequestScheduler INSTANCE = new RequestScheduler();
+
+    private static final int MAX_BACKGROUND = 4;
+    // Waiters wake this often to notice cancellation and queue deadlines
+    private static final long POLL_MILLIS = 50;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final RequestPriority[] classes = RequestPriority.values();
+    private final int[] running = new int[classes.length];
+    private final int[] waiting = new int[classes.length];
+    private int runningBackground = 0;
+
+    private final LatencyHistogram[] queueTime = new LatencyHistogram[classes.length];
+    private final AtomicLong[] deferred = new AtomicLong[classes.length];
+    private final AtomicLong[] expired = new AtomicLong[classes.length];
+
+    public static RequestScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    RequestScheduler() {
+        for (int i = 0; i < classes.length; i++) {
+            queueTime[i] = new LatencyHistogram();
+            deferred[i] = new AtomicLong();
+            expired[i] = new AtomicLong();
+        }
+    }
+
+    // Network interceptor for a client; requests without a RequestPriority.Of
+    // method (or a RequestPriority tag) get fallback
+    public Interceptor interceptor(RequestPriority fallback) {
+        return chain -> {
+            Request request = chain.request();
+            RequestPriority priority = priorityOf(request, fallback);
+            acquire(priority, chain);
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException | RuntimeException e) {
+                release(priority);
+                throw e;
+            }
+            ResponseBody body = response.body();
+            if (body == null || body.contentLength() == 0) {
+                release(priority);
+                return response;
+            }
+            // Headers are only the start: the slot covers the body download too
+            return response.newBuilder()
+                    .body(new ScheduledBody(body, () -> release(priority)))
+                    .build();
+        };
+    }
+
+    static RequestPriority priorityOf(Request request, RequestPriority fallback) {
+        RequestPriority tagged = request.tag(RequestPriority.class);
+        if (tagged != null) return tagged;
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            RequestPriority.Of declared = invocation.method().getAnnotation(RequestPriority.Of.class);
+            if (declared != null) return declared.value();
+        }
+        return fallback;
+    }
+
+    private void acquire(RequestPriority priority, Interceptor.Chain chain) throws IOException {
+        int c = priority.ordinal();
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (!canStart(c)) {
+                deferred[c].incrementAndGet();
+                waiting[c]++;
+                try {
+                    while (!canStart(c)) {
+                        if (chain.call().isCanceled()) throw new IOException("Canceled");
+                        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        if (priority.maxQueueMillis > 0 && waitedMillis >= priority.maxQueueMillis) {
+                            expired[c].incrementAndGet();
+                            throw new IOException(priority + " request deferred for " + waitedMillis + " ms");
+                        }
+                        changed.await(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while queued");
+                } finally {
+                    waiting[c]--;
+                    // A higher class leaving the queue may unblock lower ones
+                    changed.signalAll();
+                }
+            }
+            running[c]++;
+            if (priority.isBackground()) runningBackground++;
+        } finally {
+            lock.unlock();
+        }
+        queueTime[c].record(System.nanoTime() - start);
+    }
+
+    private void release(RequestPriority priority) {
+        lock.lock();
+        try {
+            running[priority.ordinal()]--;
+            if (priority.isBackground()) runningBackground--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private boolean canStart(int c) {
+        if (running[c] >= classes[c].maxConcurrent) return false;
+        for (int higher = 0; higher < c; higher++) {
+            if (waiting[higher] > 0) return false;
+        }
+        if (!classes[c].isBackground()) return true;
+        int scan = RequestPriority.SCAN.ordinal();
+        return running[scan] == 0 && waiting[scan] == 0 && runningBackground < MAX_BACKGROUND;
+    }
+
+    // Runs onDone once, when the body is read to the end, fails or is closed
+    private static final class ScheduledBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        ScheduledBody(ResponseBody delegate, Runnable onDone) {
+            this.delegate = delegate;
+            AtomicBoolean done = new AtomicBoolean(false);
+            Runnable once = () -> {
+                if (done.compareAndSet(false, true)) onDone.run();
+            };
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        once.run();
+                        throw e;
+                    }
+                    if (read == -1) once.run();
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        once.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("RequestScheduler");
+        for (int i = 0; i < classes.length; i++) {
+            out.append(String.format(Locale.ROOT, "%n  %s: deferred=%d expired=%d queue: %s",
+                    classes[i], deferred[i].get(), expired[i].get(), queueTime[i]));
+        }
+        return out.toString();
+    }
+}
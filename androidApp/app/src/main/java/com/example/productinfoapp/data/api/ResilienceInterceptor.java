@@ -0,0 +1,116 @@
+package com.example.productinfoapp.data.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// Applies each endpoint's EndpointPolicy: its own timeouts, retries of network
+// errors and 5xx with jittered exponential backoff, and a circuit breaker that
+// stops calling an endpoint that keeps failing. While the breaker is open calls
+// fail at once with CircuitOpenException, which OfflineCacheInterceptor (added
+// before this one) turns into a disk cache answer, so screens fall back to
+// cached data in milliseconds instead of after a timeout per attempt.
+public class ResilienceInterceptor implements Interceptor {
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MILLIS = 10_000;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final Random random;
+
+    public ResilienceInterceptor() {
+        this(System::currentTimeMillis, new Random());
+    }
+
+    // Clock and randomness are injectable so breaker and backoff timing can be
+    // driven from a test against a local server
+    ResilienceInterceptor(LongSupplier clockMillis, Random random) {
+        this.clock = clockMillis;
+        this.random = random;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // OfflineCacheInterceptor's cache-only retry never touches the network
+        if (request.cacheControl().onlyIfCached()) return chain.proceed(request);
+
+        String key = NetworkMetrics.endpointKey(request);
+        EndpointPolicy policy = EndpointPolicy.forEndpoint(key);
+        CircuitBreaker breaker = breakerFor(key);
+        Chain timed = chain
+                .withConnectTimeout(policy.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .withReadTimeout(policy.readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .withWriteTimeout(policy.writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        int attempts = policy.attemptsFor(request.method());
+
+        for (int attempt = 1; ; attempt++) {
+            if (!breaker.allowRequest()) {
+                throw new CircuitOpenException(key, breaker.getRetryAfterMillis());
+            }
+            Response response;
+            try {
+                response = timed.proceed(request);
+            } catch (IOException e) {
+                if (chain.call().isCanceled()) {
+                    breaker.onCancelled();
+                    throw e;
+                }
+                breaker.onFailure();
+                if (attempt >= attempts) throw e;
+                backoff(policy, attempt);
+                continue;
+            }
+            // This runs in front of the HTTP cache: a fresh cache hit says nothing
+            // about the backend, so it only frees a half-open probe
+            if (response.networkResponse() == null) {
+                breaker.onCancelled();
+                return response;
+            }
+            if (response.code() < 500) {
+                breaker.onSuccess();
+                return response;
+            }
+            breaker.onFailure();
+            if (attempt >= attempts) return response;
+            response.close();
+            backoff(policy, attempt);
+        }
+    }
+
+    private void backoff(EndpointPolicy policy, int attempt) throws IOException {
+        long delay = policy.backoffMillis(attempt, random.nextDouble());
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during retry backoff");
+        }
+    }
+
+    private CircuitBreaker breakerFor(String key) {
+        CircuitBreaker breaker = breakers.get(key);
+        if (breaker == null) {
+            breakers.putIfAbsent(key, new CircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS, clock));
+            breaker = breakers.get(key);
+        }
+        return breaker;
+    }
+
+    public Map<String, CircuitBreaker.State> getBreakerStates() {
+        Map<String, CircuitBreaker.State> states = new TreeMap<>();
+        for (Map.Entry<String, CircuitBreaker> entry : breakers.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().getState());
+        }
+        return states;
+    }
+}
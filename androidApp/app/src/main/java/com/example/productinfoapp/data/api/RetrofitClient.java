@@ -1,5 +1,13 @@
 package com.example.productinfoapp.data.api;
 
+import android.content.Context;
+import com.example.productinfoapp.BuildConfig;
+import com.example.productinfoapp.data.model.ModelJson;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -8,23 +16,93 @@ import retrofit2.converter.gson.GsonConverterFactory;
 public class RetrofitClient {
     // Use 10.0.2.2 for emulator, or your computer's IP for physical device
     private static final String BASE_URL = "http://1sid0.0.2.2:3000/";
+    private static final long HTTP_CACHE_BYTES = 20L * 1024 * 1024;
+    // Per host, well above RequestScheduler's limits so requests wait there, by priority
+    private static final int MAX_REQUESTS_PER_HOST = 16;
     private static Retrofit retrofit = null;
+    private static OkHttpClient imageClient = null;
+    private static Cache cache = null;
+    private static final HttpCacheStats cacheStats = new HttpCacheStats();
+    private static final ResilienceInterceptor resilience = new ResilienceInterceptor();
 
-    public static ApiService getApiService() {
-        if (retrofit == null) {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+    // Call once from Application.onCreate, before the first getApiService()
+    public static synchronized void init(Context context) {
+        if (cache == null) {
+            cache = new Cache(new File(context.getApplicationContext().getCacheDir(), "http"), HTTP_CACHE_BYTES);
+        }
+    }
 
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(logging)
-                    .build();
+    public static synchronized ApiService getApiService() {
+        if (retrofit == null) {
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .dispatcher(newDispatcher())
+                    .eventListenerFactory(NetworkMetrics.getInstance())
+                    .addInterceptor(new PackAcceptInterceptor())
+                    .addInterceptor(cacheStats)
+                    .addInterceptor(new OfflineCacheInterceptor())
+                    // Per-endpoint timeouts, retries and circuit breaking; its
+                    // failures fall back to the cache through OfflineCacheInterceptor
+                    .addInterceptor(resilience)
+                    // Behind the cache and inside each attempt, so cache hits and
+                    // backoff never hold a slot. Priority classes come from
+                    // RequestPriority.Of on ApiService.
+                    .addNetworkInterceptor(RequestScheduler.getInstance().interceptor(RequestPriority.PREFETCH));
+            // Request lines only, and only in debug builds: BODY buffers every
+            // response just to log it
+            if (BuildConfig.DEBUG) {
+                HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
+                logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
+                builder.addInterceptor(logging);
+            }
+            // The backend sends ETag/Last-Modified, so repeat requests revalidate with a 304
+            if (cache != null) {
+                builder.cache(cache);
+            }
 
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
-                    .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .client(builder.build())
+                    // Product responses come packed when the backend supports it, JSON otherwise
+                    .addConverterFactory(ProductPackConverterFactory.create())
+                    .addConverterFactory(GsonConverterFactory.create(createGson()))
                     .build();
         }
         return retrofit.create(ApiService.class);
     }
+
+    // Glide's client (see ProductGlideModule): same scheduler, lowest class
+    public static synchronized OkHttpClient getImageClient() {
+        if (imageClient == null) {
+            imageClient = new OkHttpClient.Builder()
+                    .dispatcher(newDispatcher())
+                    .addNetworkInterceptor(RequestScheduler.getInstance().interceptor(RequestPriority.IMAGE))
+                    .build();
+        }
+        return imageClient;
+    }
+
+    private static Dispatcher newDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return dispatcher;
+    }
+
+    // Model classes are parsed by their hand-written streaming adapters
+    public static Gson createGson() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(ModelJson.FACTORY)
+                .create();
+    }
+
+    public static String getBaseUrl() {
+        return BASE_URL;
+    }
+
+    public static HttpCacheStats getCacheStats() {
+        return cacheStats;
+    }
+
+    public static ResilienceInterceptor getResilience() {
+        return resilience;
+    }
 }
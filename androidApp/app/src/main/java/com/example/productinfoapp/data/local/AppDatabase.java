@@ -1,16 +1,161 @@
 package com.example.productinfoapp.data.local;
 
 import android.content.Context;
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import java.util.TimeZone;
 
-@Database(entities = {ProductEntity.class, ScanHistoryEntity.class}, version = 3, exportSchema = false)
+@Database(entities = {
+        ProductEntity.class,
+        ScanHistoryEntity.class,
+        ProductFts.class,
+        ScanHistoryFts.class,
+        ScanEventEntity.class,
+        NutritionDailyEntity.class
+}, version = 10, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
     private static volatile AppDatabase INSTANCE;
 
     public abstract ProductDao productDao();
     public abstract ScanHistoryDao scanHistoryDao();
+    public abstract NutritionDao nutritionDao();
+
+    // 3 -> 4: per-row freshness for the detail cache policy
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `products` ADD COLUMN `fetchedAt` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // 4 -> 5: content hash for change-detecting upserts. Existing rows keep 0,
+    // so the next refresh of each one is treated as a change and rewritten once.
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `products` ADD COLUMN `contentHash` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // 5 -> 6: indexes matching the DAO queries
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_products_barcode` ON `products` (`barcode`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_scan_history_barcode` ON `scan_history` (`barcode`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_scan_history_scannedAt` ON `scan_history` (`scannedAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_scan_history_isFavorite_scannedAt` ON `scan_history` (`isFavorite`, `scannedAt`)");
+        }
+    };
+
+    // 6 -> 7: external-content FTS tables for local search, with the same sync
+    // triggers Room creates for new databases, then filled from the existing rows
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            createFtsTable(db, "products_fts", "products", "name", "brand", "ingredients");
+            createFtsTable(db, "scan_history_fts", "scan_history", "productName", "brandName");
+        }
+    };
+
+    // 7 -> 8: one history row per barcode. Every existing scan is kept as an
+    // event, duplicates are folded into the newest row for their barcode (which
+    // stays a favorite if any of them was), then barcode becomes unique.
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `scan_history` ADD COLUMN `firstScannedAt` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `scan_history` ADD COLUMN `scanCount` INTEGER NOT NULL DEFAULT 1");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `scan_events` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`barcode` TEXT, `scannedAt` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_scan_events_barcode_scannedAt` ON `scan_events` (`barcode`, `scannedAt`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_scan_events_scannedAt` ON `scan_events` (`scannedAt`)");
+            db.execSQL("INSERT INTO `scan_events` (`barcode`, `scannedAt`) "
+                    + "SELECT `barcode`, `scannedAt` FROM `scan_history` WHERE `barcode` IS NOT NULL ORDER BY `scannedAt`");
+
+            db.execSQL("UPDATE `scan_history` SET "
+                    + "`firstScannedAt` = (SELECT MIN(h.`scannedAt`) FROM `scan_history` h WHERE h.`barcode` = `scan_history`.`barcode`), "
+                    + "`scanCount` = (SELECT COUNT(*) FROM `scan_history` h WHERE h.`barcode` = `scan_history`.`barcode`), "
+                    + "`isFavorite` = (SELECT MAX(h.`isFavorite`) FROM `scan_history` h WHERE h.`barcode` = `scan_history`.`barcode`) "
+                    + "WHERE `barcode` IS NOT NULL");
+            db.execSQL("UPDATE `scan_history` SET `firstScannedAt` = `scannedAt` WHERE `barcode` IS NULL");
+            db.execSQL("DELETE FROM `scan_history` WHERE `barcode` IS NOT NULL AND `id` <> "
+                    + "(SELECT h.`id` FROM `scan_history` h WHERE h.`barcode` = `scan_history`.`barcode` "
+                    + "ORDER BY h.`scannedAt` DESC, h.`id` DESC LIMIT 1)");
+
+            db.execSQL("DROP INDEX IF EXISTS `index_scan_history_barcode`");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_scan_history_barcode` ON `scan_history` (`barcode`)");
+        }
+    };
+
+    // 8 -> 9: nutrition per scan event and daily nutrition totals. Events logged
+    // so far take the cached product's nutrition and the history row's grade,
+    // then the daily rows are built from them in one GROUP BY.
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            for (String column : new String[] {"calories", "sugar", "salt", "saturatedFat"}) {
+                db.execSQL("ALTER TABLE `scan_events` ADD COLUMN `" + column + "` REAL");
+            }
+            db.execSQL("ALTER TABLE `scan_events` ADD COLUMN `nutriScoreGrade` TEXT");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `nutrition_daily` (`day` INTEGER NOT NULL, "
+                    + "`scans` INTEGER NOT NULL, `scansWithNutrition` INTEGER NOT NULL, "
+                    + "`calories` REAL NOT NULL, `sugar` REAL NOT NULL, `salt` REAL NOT NULL, "
+                    + "`saturatedFat` REAL NOT NULL, `gradeA` INTEGER NOT NULL, `gradeB` INTEGER NOT NULL, "
+                    + "`gradeC` INTEGER NOT NULL, `gradeD` INTEGER NOT NULL, `gradeE` INTEGER NOT NULL, "
+                    + "`gradeUnknown` INTEGER NOT NULL, PRIMARY KEY(`day`))");
+
+            db.execSQL("UPDATE `scan_events` SET "
+                    + "`nutriScoreGrade` = (SELECT h.`nutriScoreGrade` FROM `scan_history` h WHERE h.`barcode` = `scan_events`.`barcode`), "
+                    + "`calories` = (SELECT p.`calories` FROM `products` p WHERE p.`barcode` = `scan_events`.`barcode` LIMIT 1), "
+                    + "`sugar` = (SELECT p.`sugar` FROM `products` p WHERE p.`barcode` = `scan_events`.`barcode` LIMIT 1), "
+                    + "`salt` = (SELECT p.`salt` FROM `products` p WHERE p.`barcode` = `scan_events`.`barcode` LIMIT 1), "
+                    + "`saturatedFat` = (SELECT p.`saturatedFat` FROM `products` p WHERE p.`barcode` = `scan_events`.`barcode` LIMIT 1)");
+            long tzOffset = TimeZone.getDefault().getOffset(System.currentTimeMillis());
+            db.execSQL(NutritionDao.INSERT_FROM_EVENTS.replace(":tzOffsetMillis", "?"), new Object[] {tzOffset});
+        }
+    };
+
+    // 9 -> 10: catalog membership for the keyset-paged product list. Existing
+    // rows start unlisted; the list fills again from the first page downloaded.
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `products` ADD COLUMN `listedAt` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    static final Migration[] MIGRATIONS = {
+            MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9,
+            MIGRATION_9_10
+    };
+
+    private static void createFtsTable(SupportSQLiteDatabase db, String fts, String content, String... columns) {
+        StringBuilder columnDefs = new StringBuilder();
+        StringBuilder columnNames = new StringBuilder();
+        StringBuilder newValues = new StringBuilder();
+        for (String column : columns) {
+            columnDefs.append('`').append(column).append("` TEXT, ");
+            columnNames.append(", `").append(column).append('`');
+            newValues.append(", NEW.`").append(column).append('`');
+        }
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `" + fts + "` USING FTS4("
+                + columnDefs + "tokenize=unicode61, content=`" + content + "`)");
+
+        String delete = "BEGIN DELETE FROM `" + fts + "` WHERE `docid`=OLD.`rowid`; END";
+        String insert = "BEGIN INSERT INTO `" + fts + "`(`docid`" + columnNames + ") VALUES (NEW.`rowid`" + newValues + "); END";
+        String prefix = "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_" + fts + "_";
+        db.execSQL(prefix + "BEFORE_UPDATE BEFORE UPDATE ON `" + content + "` " + delete);
+        db.execSQL(prefix + "BEFORE_DELETE BEFORE DELETE ON `" + content + "` " + delete);
+        db.execSQL(prefix + "AFTER_UPDATE AFTER UPDATE ON `" + content + "` " + insert);
+        db.execSQL(prefix + "AFTER_INSERT AFTER INSERT ON `" + content + "` " + insert);
+
+        db.execSQL("INSERT INTO `" + fts + "`(`" + fts + "`) VALUES('rebuild')");
+    }
 
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
@@ -20,11 +165,14 @@ public abstract class AppDatabase extends RoomDatabase {
                             context.getApplicationContext(),
                             AppDatabase.class,
                             "product_database"
-                    ).fallbackToDestructiveMigration().build();
+                    )
+                    .addMigrations(MIGRATIONS)
+                    // Versions before 3 have no exported schema to migrate from
+                    .fallbackToDestructiveMigrationFrom(1, 2)
+                    .build();
                 }
             }
         }
         return INSTANCE;
     }
 }
-
@@ -0,0 +1,192 @@
+package com.example.productinfoapp.data.local;
+
+import android.content.Context;
+import android.util.Log;
+import com.example.productinfoapp.data.model.Product;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// Read-only, memory-mapped barcode index built from the backend's
+// /products/barcode-index snapshot (format documented in backend/utils/barcodeIndex.js).
+// Keys are numeric EAN/UPC values in a sorted array, so a lookup is a binary
+// search over the mapped file and only the pages it touches are loaded.
+public class BarcodeIndex {
+    private static final String TAG = "BarcodeIndex";
+    public static final String FILE_NAME = "barcode_index.bin";
+
+    private static final int MAGIC = 0x50494458; // "PIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int ENTRY_SIZE = 12;
+    // id, score, grade, flags before the strings
+    private static final int SUMMARY_FIXED_SIZE = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static volatile BarcodeIndex INSTANCE;
+
+    private final File file;
+    private volatile MappedByteBuffer buffer;
+    private volatile int count;
+    private volatile long builtAt;
+
+    private BarcodeIndex(File file) {
+        this.file = file;
+        reload();
+    }
+
+    public static BarcodeIndex getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (BarcodeIndex.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new BarcodeIndex(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Maps the current snapshot file, e.g. after a new one has been downloaded
+    public synchronized void reload() {
+        if (!file.exists()) {
+            buffer = null;
+            count = 0;
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                Log.w(TAG, "Ignoring barcode index with unknown format");
+                buffer = null;
+                count = 0;
+                return;
+            }
+            int entries = mapped.getInt(8);
+            if (HEADER_SIZE + (long) entries * ENTRY_SIZE > mapped.capacity()) {
+                Log.w(TAG, "Ignoring truncated barcode index");
+                buffer = null;
+                count = 0;
+                return;
+            }
+            builtAt = mapped.getLong(12);
+            count = entries;
+            buffer = mapped;
+            Log.d(TAG, "Mapped barcode index with " + count + " entries");
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to map barcode index", e);
+            buffer = null;
+            count = 0;
+        }
+    }
+
+    public boolean isAvailable() { return buffer != null; }
+    public int size() { return count; }
+    public long getBuiltAt() { return builtAt; }
+
+    /**
+     * Looks a barcode up in the snapshot. Returns a summary Product (id, name,
+     * brand, image, score, NutriScore, organic flag) or null if the barcode is
+     * not numeric or not in the index.
+     */
+    public Product lookup(String barcode) {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null) return null;
+        long key = parseKey(barcode);
+        if (key < 0) return null;
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = mapped.getLong(HEADER_SIZE + mid * ENTRY_SIZE);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                int offset = mapped.getInt(HEADER_SIZE + mid * ENTRY_SIZE + 8);
+                try {
+                    return readSummary(mapped, offset, barcode);
+                } catch (RuntimeException e) {
+                    // Runs on the scan path: a corrupt snapshot must not crash it
+                    Log.e(TAG, "Corrupt barcode index entry for " + barcode + ", discarding snapshot", e);
+                    discard(mapped);
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Drops a snapshot that failed to read, so the next refresh downloads a new one
+    private synchronized void discard(MappedByteBuffer corrupt) {
+        if (buffer != corrupt) return; // Already replaced by a reload
+        buffer = null;
+        count = 0;
+        if (!file.delete()) Log.w(TAG, "Could not delete corrupt barcode index");
+    }
+
+    private static long parseKey(String barcode) {
+        if (barcode == null || barcode.isEmpty() || barcode.length() > 18) return -1;
+        long key = 0;
+        for (int i = 0; i < barcode.length(); i++) {
+            char c = barcode.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    // Summaries follow the key table; every offset and length is checked
+    // against the mapped size before it is read
+    private static Product readSummary(MappedByteBuffer mapped, int offset, String barcode) {
+        int summariesStart = HEADER_SIZE + (int) Math.min(Integer.MAX_VALUE, (long) mapped.getInt(8) * ENTRY_SIZE);
+        if (offset < summariesStart || offset > mapped.limit() - SUMMARY_FIXED_SIZE) {
+            throw new IndexOutOfBoundsException("Summary offset " + offset + " outside " + mapped.limit());
+        }
+        // Duplicate so concurrent lookups don't share a position
+        ByteBuffer in = mapped.duplicate();
+        in.position(offset);
+
+        char[] id = new char[24];
+        for (int i = 0; i < 12; i++) {
+            int b = in.get() & 0xFF;
+            id[i * 2] = HEX[b >>> 4];
+            id[i * 2 + 1] = HEX[b & 0x0F];
+        }
+        short score = in.getShort();
+        int grade = in.get() & 0xFF;
+        int flags = in.get() & 0xFF;
+
+        Product product = new Product();
+        product.setId(new String(id));
+        product.setBarcode(barcode);
+        product.setScore(score);
+        product.setNutriScore(grade != 0 ? String.valueOf((char) grade) : null);
+        product.setOrganic((flags & 1) != 0);
+        product.setName(readString(in));
+        product.setBrand(readString(in));
+        String imageUrl = readString(in);
+        product.setImageUrl(imageUrl.isEmpty() ? null : imageUrl);
+        return product;
+    }
+
+    private static String readString(ByteBuffer in) {
+        if (in.remaining() < 2) throw new BufferUnderflowException();
+        int length = in.getShort() & 0xFFFF;
+        if (length > in.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
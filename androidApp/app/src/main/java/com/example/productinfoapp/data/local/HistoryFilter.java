@@ -0,0 +1,59 @@
+package com.example.productinfoapp.data.local;
+
+import java.util.Objects;
+
+// Immutable filter for ScanHistoryDao.getHistoryPage
+public class HistoryFilter {
+    public final boolean favoritesOnly;
+    public final String grade; // NutriScore grade, null for any
+    public final int minScore;
+    public final int maxScore;
+    public final long fromMillis;
+    public final long toMillis;
+
+    public HistoryFilter(boolean favoritesOnly, String grade, int minScore, int maxScore,
+                         long fromMillis, long toMillis) {
+        this.favoritesOnly = favoritesOnly;
+        this.grade = grade;
+        this.minScore = minScore;
+        this.maxScore = maxScore;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    public static HistoryFilter all() {
+        return new HistoryFilter(false, null, 0, 100, 0, Long.MAX_VALUE);
+    }
+
+    public HistoryFilter withFavoritesOnly(boolean favoritesOnly) {
+        return new HistoryFilter(favoritesOnly, grade, minScore, maxScore, fromMillis, toMillis);
+    }
+
+    public HistoryFilter withGrade(String grade) {
+        return new HistoryFilter(favoritesOnly, grade, minScore, maxScore, fromMillis, toMillis);
+    }
+
+    public HistoryFilter withScoreRange(int minScore, int maxScore) {
+        return new HistoryFilter(favoritesOnly, grade, minScore, maxScore, fromMillis, toMillis);
+    }
+
+    public HistoryFilter withDateWindow(long fromMillis, long toMillis) {
+        return new HistoryFilter(favoritesOnly, grade, minScore, maxScore, fromMillis, toMillis);
+    }
+
+    // Equal filters select the same rows, so the list need not be reloaded
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HistoryFilter)) return false;
+        HistoryFilter other = (HistoryFilter) o;
+        return favoritesOnly == other.favoritesOnly && Objects.equals(grade, other.grade)
+                && minScore == other.minScore && maxScore == other.maxScore
+                && fromMillis == other.fromMillis && toMillis == other.toMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(favoritesOnly, grade, minScore, maxScore, fromMillis, toMillis);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.productinfoapp.data.local;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+// Running nutrition totals for one local calendar day, updated in the same
+// transaction as each scan (ScanHistoryDao.recordScan). Dashboard windows sum at
+// most a month of these rows instead of reading the scans themselves.
+@Entity(tableName = "nutrition_daily")
+public class NutritionDailyEntity {
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @PrimaryKey
+    public int day; // Days since the epoch in local time, see dayOf
+
+    public int scans;
+    public int scansWithNutrition; // Denominator for the nutrient averages
+    public double calories;
+    public double sugar;
+    public double salt;
+    public double saturatedFat;
+
+    // NutriScore distribution
+    public int gradeA;
+    public int gradeB;
+    public int gradeC;
+    public int gradeD;
+    public int gradeE;
+    public int gradeUnknown;
+
+    public NutritionDailyEntity() {}
+
+    public NutritionDailyEntity(int day) {
+        this.day = day;
+    }
+
+    public static int dayOf(long millis) {
+        return (int) Math.floorDiv(millis + TimeZone.getDefault().getOffset(millis), DAY_MILLIS);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.productinfoapp.data.local;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import java.util.List;
+
+// Read side of the nutrition dashboard. Rows are maintained incrementally by
+// ScanHistoryDao.recordScan; rebuild() recomputes them from the scan log.
+@Dao
+public interface NutritionDao {
+    String SUM_COLUMNS = "COALESCE(SUM(scans), 0) AS scans, "
+            + "COALESCE(SUM(scansWithNutrition), 0) AS scansWithNutrition, "
+            + "COALESCE(SUM(calories), 0) AS calories, COALESCE(SUM(sugar), 0) AS sugar, "
+            + "COALESCE(SUM(salt), 0) AS salt, COALESCE(SUM(saturatedFat), 0) AS saturatedFat, "
+            + "COALESCE(SUM(gradeA), 0) AS gradeA, COALESCE(SUM(gradeB), 0) AS gradeB, "
+            + "COALESCE(SUM(gradeC), 0) AS gradeC, COALESCE(SUM(gradeD), 0) AS gradeD, "
+            + "COALESCE(SUM(gradeE), 0) AS gradeE, COALESCE(SUM(gradeUnknown), 0) AS gradeUnknown";
+
+    // Days are inclusive, see NutritionDailyEntity.dayOf
+    @Query("SELECT " + SUM_COLUMNS + " FROM nutrition_daily WHERE day BETWEEN :fromDay AND :toDay")
+    LiveData<NutritionSummary> getSummary(int fromDay, int toDay);
+
+    @Query("SELECT * FROM nutrition_daily WHERE day BETWEEN :fromDay AND :toDay ORDER BY day")
+    LiveData<List<NutritionDailyEntity>> getDays(int fromDay, int toDay);
+
+    @Query("DELETE FROM nutrition_daily")
+    void clear();
+
+    // One GROUP BY pass over scan_events; tzOffsetMillis maps scan times to local
+    // days. Also used by AppDatabase.MIGRATION_8_9 for the initial backfill.
+    String INSERT_FROM_EVENTS = "INSERT INTO nutrition_daily (day, scans, scansWithNutrition, "
+            + "calories, sugar, salt, saturatedFat, gradeA, gradeB, gradeC, gradeD, gradeE, gradeUnknown) "
+            + "SELECT (scannedAt + :tzOffsetMillis) / 86400000 AS d, COUNT(*), COUNT(calories), "
+            + "COALESCE(SUM(calories), 0), COALESCE(SUM(sugar), 0), COALESCE(SUM(salt), 0), "
+            + "COALESCE(SUM(saturatedFat), 0), "
+            + "SUM(UPPER(nutriScoreGrade) IS 'A'), SUM(UPPER(nutriScoreGrade) IS 'B'), "
+            + "SUM(UPPER(nutriScoreGrade) IS 'C'), SUM(UPPER(nutriScoreGrade) IS 'D'), "
+            + "SUM(UPPER(nutriScoreGrade) IS 'E'), "
+            + "SUM(nutriScoreGrade IS NULL OR UPPER(nutriScoreGrade) NOT IN ('A', 'B', 'C', 'D', 'E')) "
+            + "FROM scan_events GROUP BY d";
+
+    @Query(INSERT_FROM_EVENTS)
+    void insertFromEvents(long tzOffsetMillis);
+
+    // Only as complete as the event log, which HistoryCompactor trims by age
+    @Transaction
+    default void rebuild(long tzOffsetMillis) {
+        clear();
+        insertFromEvents(tzOffsetMillis);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.productinfoapp.data.local;
+
+// Totals over a range of days, read from nutrition_daily (see NutritionDao)
+public class NutritionSummary {
+    public int scans;
+    public int scansWithNutrition;
+    public double calories;
+    public double sugar;
+    public double salt;
+    public double saturatedFat;
+    public int gradeA;
+    public int gradeB;
+    public int gradeC;
+    public int gradeD;
+    public int gradeE;
+    public int gradeUnknown;
+
+    public double averageCalories() { return average(calories); }
+    public double averageSugar() { return average(sugar); }
+    public double averageSalt() { return average(salt); }
+    public double averageSaturatedFat() { return average(saturatedFat); }
+
+    private double average(double total) {
+        return scansWithNutrition > 0 ? total / scansWithNutrition : 0;
+    }
+}
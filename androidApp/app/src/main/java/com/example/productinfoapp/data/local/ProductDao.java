@@ -5,19 +5,214 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Update;
+import com.example.productinfoapp.data.model.ProductSummary;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface ProductDao {
+    // Stay well below SQLite's 999 bound-variable limit for IN (...) lookups
+    int MAX_QUERY_ARGS = 500;
+
+    // Columns of the ProductSummary projection used by list screens
+    String SUMMARY_COLUMNS = "products.id, products.barcode, products.name, products.brand, "
+            + "products.imageUrl, products.score, products.nutriScore, products.isOrganic";
+
     @Query("SELECT * FROM products")
     LiveData<List<ProductEntity>> getAllProducts();
 
+    // Catalog pages, keyed on id in the backend list order (_id descending), over
+    // rows that came from a list page (listedAt > 0) and not ones cached by scans
+    // or searches. Summary columns only: list rows never need ingredients or
+    // nutrition. The last loaded page is bounded by LIMIT, earlier ones by the
+    // key range they had when the next page was added.
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE listedAt > 0 "
+            + "ORDER BY id DESC LIMIT :pageSize")
+    LiveData<List<ProductSummary>> getFirstListedPage(int pageSize);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE listedAt > 0 AND id < :beforeId "
+            + "ORDER BY id DESC LIMIT :pageSize")
+    LiveData<List<ProductSummary>> getListedPageBefore(String beforeId, int pageSize);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE listedAt > 0 AND id >= :fromId "
+            + "ORDER BY id DESC")
+    LiveData<List<ProductSummary>> getListedFrom(String fromId);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE listedAt > 0 AND id >= :fromId AND id < :beforeId "
+            + "ORDER BY id DESC")
+    LiveData<List<ProductSummary>> getListedBetween(String fromId, String beforeId);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE id IN (:ids)")
+    List<ProductSummary> getSummariesByIds(List<String> ids);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE barcode IN (:barcodes)")
+    List<ProductSummary> getSummariesByBarcodes(List<String> barcodes);
+
     @Query("SELECT * FROM products WHERE id = :id")
     LiveData<ProductEntity> getProductById(String id);
 
+    @Query("SELECT * FROM products WHERE id = :id")
+    ProductEntity getProductByIdSync(String id);
+
+    @Query("SELECT * FROM products WHERE barcode IN (:barcodes)")
+    List<ProductEntity> getProductsByBarcodes(List<String> barcodes);
+
+    // ftsQuery uses FTS MATCH syntax, see LocalProductSearch.toFtsQuery
+    @Query("SELECT " + SUMMARY_COLUMNS + ", matchinfo(products_fts, 'pcx') AS matchInfo FROM products "
+            + "JOIN products_fts ON products.rowid = products_fts.rowid "
+            + "WHERE products_fts MATCH :ftsQuery LIMIT :limit")
+    List<ProductSearchRow> search(String ftsQuery, int limit);
+
+    @Query("SELECT id, contentHash, fetchedAt, listedAt FROM products WHERE id IN (:ids)")
+    List<ProductVersion> getVersions(List<String> ids);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertAll(List<ProductEntity> products);
-    
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(ProductEntity product);
+
+    @Update
+    int updateAll(List<ProductEntity> products);
+
+    @Query("UPDATE products SET fetchedAt = :fetchedAt WHERE id IN (:ids)")
+    void touch(List<String> ids, long fetchedAt);
+
+    // contentHash 0 marks the row as no longer matching any full Product, so
+    // the next full download rewrites it and cached full copies are not reused
+    @Query("UPDATE products SET barcode = :barcode, name = :name, brand = :brand, imageUrl = :imageUrl, "
+            + "score = :score, nutriScore = :nutriScore, isOrganic = :isOrganic, contentHash = 0 WHERE id = :id")
+    void updateSummary(String id, String barcode, String name, String brand, String imageUrl,
+                       float score, String nutriScore, boolean isOrganic);
+
+    // Rows already listed keep their first listedAt, so repeat pages write nothing
+    @Query("UPDATE products SET listedAt = :listedAt WHERE listedAt = 0 AND id IN (:ids)")
+    int markListed(List<String> ids, long listedAt);
+
+    @Query("DELETE FROM products WHERE id IN (:ids)")
+    int deleteByIds(List<String> ids);
+
+    // Earliest time any cached row was known current: a full download, or a
+    // catalog page for summary rows, which have no fetchedAt
+    @Query("SELECT MIN(t) FROM (SELECT MIN(fetchedAt) AS t FROM products WHERE fetchedAt > 0 "
+            + "UNION ALL SELECT MIN(listedAt) FROM products WHERE listedAt > 0)")
+    long getOldestCachedAt();
+
+    /**
+     * Writes only what changed: new rows are inserted, rows whose content hash
+     * differs are updated in place, and identical rows are left alone. Identical
+     * rows only get their fetchedAt bumped once it is older than staleBefore, so
+     * refreshes inside the freshness window cause no writes (and no LiveData
+     * invalidation) at all.
+     *
+     * @return number of rows written
+     */
+    @Transaction
+    default int upsertAll(List<ProductEntity> products, long staleBefore) {
+        return write(products, staleBefore, true);
+    }
+
+    /**
+     * Like {@link #upsertAll} but only for products already stored: rows that
+     * are not cached are skipped rather than inserted. Used for change feeds,
+     * which describe the whole catalogue and not just what this device holds.
+     *
+     * @return number of rows written
+     */
+    @Transaction
+    default int updateStored(List<ProductEntity> products, long staleBefore) {
+        return write(products, staleBefore, false);
+    }
+
+    // Shared body of upsertAll and updateStored; call those instead
+    default int write(List<ProductEntity> products, long staleBefore, boolean insertMissing) {
+        List<ProductEntity> inserts = new ArrayList<>();
+        List<ProductEntity> updates = new ArrayList<>();
+        List<String> touches = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (int start = 0; start < products.size(); start += MAX_QUERY_ARGS) {
+            List<ProductEntity> chunk = products.subList(start, Math.min(products.size(), start + MAX_QUERY_ARGS));
+            List<String> ids = new ArrayList<>(chunk.size());
+            for (ProductEntity product : chunk) {
+                ids.add(product.id);
+            }
+            Map<String, ProductVersion> stored = new HashMap<>();
+            for (ProductVersion version : getVersions(ids)) {
+                stored.put(version.id, version);
+            }
+            for (ProductEntity product : chunk) {
+                ProductVersion version = stored.get(product.id);
+                if (version == null) {
+                    if (insertMissing) inserts.add(product);
+                } else if (version.contentHash != product.contentHash) {
+                    // Full products carry no list membership; keep the stored one
+                    product.listedAt = version.listedAt;
+                    updates.add(product);
+                } else if (version.fetchedAt < staleBefore) {
+                    touches.add(product.id);
+                }
+            }
+        }
+
+        if (!inserts.isEmpty()) insertAll(inserts);
+        if (!updates.isEmpty()) updateAll(updates);
+        for (int start = 0; start < touches.size(); start += MAX_QUERY_ARGS) {
+            touch(touches.subList(start, Math.min(touches.size(), start + MAX_QUERY_ARGS)), now);
+        }
+        return inserts.size() + updates.size() + touches.size();
+    }
+
+    /**
+     * Stores list summaries without touching the columns they don't carry.
+     * Missing products are inserted as summary rows (fetchedAt 0, so detail
+     * fetches the full product); existing rows are updated only where a
+     * summary field changed. fetchedAt is left alone: a summary says nothing
+     * about the freshness of ingredients or nutrition.
+     *
+     * @param listedAt when these came from a catalog list page, 0 otherwise
+     *                 (e.g. search results), which leaves list membership alone
+     * @return number of rows written
+     */
+    @Transaction
+    default int upsertSummaries(List<ProductSummary> summaries, long listedAt) {
+        List<ProductEntity> inserts = new ArrayList<>();
+        int updated = 0;
+        for (int start = 0; start < summaries.size(); start += MAX_QUERY_ARGS) {
+            List<ProductSummary> chunk = summaries.subList(start, Math.min(summaries.size(), start + MAX_QUERY_ARGS));
+            List<String> ids = new ArrayList<>(chunk.size());
+            for (ProductSummary summary : chunk) {
+                ids.add(summary.getId());
+            }
+            Map<String, ProductSummary> stored = new HashMap<>();
+            for (ProductSummary summary : getSummariesByIds(ids)) {
+                stored.put(summary.getId(), summary);
+            }
+            for (ProductSummary summary : chunk) {
+                ProductSummary current = stored.get(summary.getId());
+                if (current == null) {
+                    ProductEntity entity = new ProductEntity(summary);
+                    entity.listedAt = listedAt;
+                    inserts.add(entity);
+                } else if (!current.equals(summary)) {
+                    updateSummary(summary.getId(), summary.getBarcode(), summary.getName(), summary.getBrand(),
+                            summary.getImageUrl(), summary.getScore(), summary.getNutriScore(), summary.isOrganic());
+                    updated++;
+                }
+            }
+            if (listedAt > 0) updated += markListed(ids, listedAt);
+        }
+        if (!inserts.isEmpty()) insertAll(inserts);
+        return inserts.size() + updated;
+    }
+
+    @Transaction
+    default boolean upsert(ProductEntity product, long staleBefore) {
+        return upsertAll(Collections.singletonList(product), staleBefore) > 0;
+    }
 }
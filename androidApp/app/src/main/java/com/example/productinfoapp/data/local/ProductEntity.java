@@ -1,13 +1,16 @@
 package com.example.productinfoapp.data.local;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.Embedded;
 import androidx.room.Ignore;
 import com.example.productinfoapp.data.model.Nutrition;
 import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductSummary;
 
-@Entity(tableName = "products")
+@Entity(tableName = "products", indices = {@Index("barcode")})
 public class ProductEntity {
     @PrimaryKey
     @androidx.annotation.NonNull
@@ -22,6 +25,16 @@ public class ProductEntity {
     public int calculatedScore;
     public boolean isOrganic;
     public String nutriScore;
+    @ColumnInfo(defaultValue = "0")
+    public long fetchedAt; // When this row was last downloaded, used for cache freshness
+
+    // When the row first came from a catalog list page; 0 = cached some other way
+    @ColumnInfo(defaultValue = "0")
+    public long listedAt;
+
+    // 64-bit hash of the content columns, used to skip unchanged rows; 0 = summary only
+    @ColumnInfo(defaultValue = "0")
+    public long contentHash;
 
     @Embedded
     public Nutrition nutrition;
@@ -41,6 +54,76 @@ public class ProductEntity {
         this.isOrganic = product.isOrganic();
         this.nutriScore = product.getNutriScore();
         this.nutrition = product.getNutrition();
+        this.fetchedAt = System.currentTimeMillis();
+        this.contentHash = computeContentHash();
+    }
+
+    // A row known only from a list summary. fetchedAt and contentHash stay 0,
+    // so detail downloads the full product and the first full upsert replaces it.
+    @Ignore
+    public ProductEntity(ProductSummary summary) {
+        this.id = summary.getId();
+        this.barcode = summary.getBarcode();
+        this.name = summary.getName();
+        this.brand = summary.getBrand();
+        this.imageUrl = summary.getImageUrl();
+        this.score = summary.getScore();
+        this.isOrganic = summary.isOrganic();
+        this.nutriScore = summary.getNutriScore();
+    }
+
+    // FNV-1a over every content column. 64 bits because a collision would
+    // silently skip a real update until the row's TTL ran out; with 32 bits
+    // that becomes likely within a catalog-sized number of changes.
+    public long computeContentHash() {
+        long h = FNV_OFFSET;
+        h = mix(h, id);
+        h = mix(h, barcode);
+        h = mix(h, name);
+        h = mix(h, brand);
+        h = mix(h, imageUrl);
+        h = mix(h, ingredients);
+        h = mix(h, Float.floatToIntBits(score));
+        h = mix(h, calculatedScore);
+        h = mix(h, isOrganic ? 1 : 0);
+        h = mix(h, nutriScore);
+        if (nutrition != null) {
+            h = mix(h, Double.doubleToLongBits(nutrition.getCalories()));
+            h = mix(h, Double.doubleToLongBits(nutrition.getSugar()));
+            h = mix(h, Double.doubleToLongBits(nutrition.getFat()));
+            h = mix(h, Double.doubleToLongBits(nutrition.getSaturatedFat()));
+            h = mix(h, Double.doubleToLongBits(nutrition.getSalt()));
+            h = mix(h, Double.doubleToLongBits(nutrition.getProtein()));
+            h = mix(h, Double.doubleToLongBits(nutrition.getFiber()));
+            h = mix(h, Double.doubleToLongBits(nutrition.getServingSize()));
+            h = mix(h, nutrition.getServingUnit());
+        }
+        return h != 0 ? h : 1; // 0 is reserved for summary rows
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (value >>> (i * 8)) & 0xFF;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    // Length-prefixed so ("ab", "c") and ("a", "bc") differ; -1 marks null
+    private static long mix(long h, String value) {
+        if (value == null) return mix(h, -1L);
+        h = mix(h, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            h ^= c & 0xFF;
+            h *= FNV_PRIME;
+            h ^= c >>> 8;
+            h *= FNV_PRIME;
+        }
+        return h;
     }
 
     public Product toProduct() {
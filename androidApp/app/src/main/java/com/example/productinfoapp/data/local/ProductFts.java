@@ -0,0 +1,15 @@
+package com.example.productinfoapp.data.local;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// Full-text index over products, kept in sync with the products table by the
+// triggers Room generates for external-content FTS tables
+@Fts4(contentEntity = ProductEntity.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "products_fts")
+public class ProductFts {
+    public String name;
+    public String brand;
+    public String ingredients;
+}
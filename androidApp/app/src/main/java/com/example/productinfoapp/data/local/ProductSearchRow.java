@@ -0,0 +1,13 @@
+package com.example.productinfoapp.data.local;
+
+import androidx.room.Embedded;
+import com.example.productinfoapp.data.model.ProductSummary;
+
+// A full-text search hit: the product's summary columns plus SQLite's
+// matchinfo('pcx') blob used for ranking
+public class ProductSearchRow {
+    @Embedded
+    public ProductSummary product;
+
+    public byte[] matchInfo;
+}
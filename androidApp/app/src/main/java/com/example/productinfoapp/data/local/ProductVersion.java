@@ -0,0 +1,9 @@
+package com.example.productinfoapp.data.local;
+
+// Lightweight projection of a products row used to detect changes before writing
+public class ProductVersion {
+    public String id;
+    public long contentHash;
+    public long fetchedAt;
+    public long listedAt;
+}
@@ -0,0 +1,40 @@
+package com.example.productinfoapp.data.local;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import com.example.productinfoapp.data.model.Nutrition;
+
+// Compact per-scan log next to the aggregated scan_history rows: when a barcode
+// was scanned and the nutrition it had then (null when the product had none).
+// Trimmed by HistoryCompactor.
+@Entity(tableName = "scan_events", indices = {
+        @Index({"barcode", "scannedAt"}),
+        @Index("scannedAt")
+})
+public class ScanEventEntity {
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    public String barcode;
+    public long scannedAt;
+    public String nutriScoreGrade;
+    public Double calories;
+    public Double sugar;
+    public Double salt;
+    public Double saturatedFat;
+
+    public ScanEventEntity() {}
+
+    public ScanEventEntity(ScanHistoryEntity scan, Nutrition nutrition) {
+        this.barcode = scan.barcode;
+        this.scannedAt = scan.scannedAt;
+        this.nutriScoreGrade = scan.nutriScoreGrade;
+        if (nutrition != null) {
+            this.calories = nutrition.getCalories();
+            this.sugar = nutrition.getSugar();
+            this.salt = nutrition.getSalt();
+            this.saturatedFat = nutrition.getSaturatedFat();
+        }
+    }
+}
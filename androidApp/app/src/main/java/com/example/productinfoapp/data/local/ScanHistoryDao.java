@@ -5,19 +5,57 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import com.example.productinfoapp.data.model.Nutrition;
+import com.example.productinfoapp.data.model.Product;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Dao
 public interface ScanHistoryDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(ScanHistoryEntity history);
 
-    @Query("SELECT * FROM scan_history ORDER BY scannedAt DESC")
-    LiveData<List<ScanHistoryEntity>> getAllHistory();
+    // History pages, newest first, keyed on (scannedAt, id): rows from the
+    // "through" key (inclusive) up to the "before" key (exclusive). All rows and
+    // favorites are separate queries so each walks its own index, (scannedAt)
+    // or (isFavorite, scannedAt), instead of a flag the planner can't see
+    // through. limit -1 means no limit. See HistoryPages.
+    String PAGE_WHERE = "scannedAt <= :beforeAt AND (scannedAt < :beforeAt OR id < :beforeId) "
+            + "AND scannedAt >= :throughAt AND (scannedAt > :throughAt OR id >= :throughId) "
+            + "AND scannedAt BETWEEN :fromMillis AND :toMillis "
+            + "AND (:grade IS NULL OR nutriScoreGrade = :grade COLLATE NOCASE) "
+            + "AND healthScore BETWEEN :minScore AND :maxScore "
+            + "ORDER BY scannedAt DESC, id DESC LIMIT :limit";
 
-    @Query("SELECT * FROM scan_history WHERE isFavorite = 1 ORDER BY scannedAt DESC")
-    LiveData<List<ScanHistoryEntity>> getFavorites();
+    @Query("SELECT * FROM scan_history WHERE " + PAGE_WHERE)
+    LiveData<List<ScanHistoryEntity>> getPage(long beforeAt, int beforeId, long throughAt, int throughId,
+                                              String grade, int minScore, int maxScore,
+                                              long fromMillis, long toMillis, int limit);
+
+    @Query("SELECT * FROM scan_history WHERE isFavorite = 1 AND " + PAGE_WHERE)
+    LiveData<List<ScanHistoryEntity>> getFavoritesPage(long beforeAt, int beforeId, long throughAt, int throughId,
+                                                       String grade, int minScore, int maxScore,
+                                                       long fromMillis, long toMillis, int limit);
+
+    default LiveData<List<ScanHistoryEntity>> getHistoryPage(HistoryFilter filter, long beforeAt, int beforeId,
+                                                             long throughAt, int throughId, int limit) {
+        if (filter.favoritesOnly) {
+            return getFavoritesPage(beforeAt, beforeId, throughAt, throughId, filter.grade,
+                    filter.minScore, filter.maxScore, filter.fromMillis, filter.toMillis, limit);
+        }
+        return getPage(beforeAt, beforeId, throughAt, throughId, filter.grade,
+                filter.minScore, filter.maxScore, filter.fromMillis, filter.toMillis, limit);
+    }
+
+    @Query("SELECT scan_history.* FROM scan_history "
+            + "JOIN scan_history_fts ON scan_history.id = scan_history_fts.rowid "
+            + "WHERE scan_history_fts MATCH :ftsQuery ORDER BY scannedAt DESC LIMIT :limit")
+    List<ScanHistoryEntity> search(String ftsQuery, int limit);
 
     @Query("SELECT * FROM scan_history WHERE barcode = :barcode LIMIT 1")
     ScanHistoryEntity getByBarcode(String barcode);
@@ -33,4 +71,129 @@ public interface ScanHistoryDao {
 
     @Query("DELETE FROM scan_history WHERE isFavorite = 0")
     void clearNonFavorites();
+
+    /**
+     * Records one scan: the first scan of a barcode inserts its row, later scans
+     * refresh the product fields and bump scanCount on the same row. The scan is
+     * also added to that day's nutrition_daily totals.
+     *
+     * @param nutrition the product's nutrition at scan time, null when the scan
+     *                  was answered without it (barcode index, summary row). Such
+     *                  scans are always logged as events so backfillNutrition
+     *                  can add them to the totals later.
+     * @param logEvent also append the scan to the scan_events log
+     */
+    @Transaction
+    default void recordScan(ScanHistoryEntity scan, Nutrition nutrition, boolean logEvent) {
+        ScanHistoryEntity existing = scan.barcode != null ? getByBarcode(scan.barcode) : null;
+        if (existing == null) {
+            insert(scan);
+        } else {
+            existing.mergeScan(scan);
+            update(existing);
+        }
+        if ((logEvent || nutrition == null) && scan.barcode != null) {
+            insertEvent(new ScanEventEntity(scan, nutrition));
+        }
+
+        int day = NutritionDailyEntity.dayOf(scan.scannedAt);
+        insertDay(new NutritionDailyEntity(day));
+        String grade = scan.nutriScoreGrade != null ? scan.nutriScoreGrade.toUpperCase(Locale.ROOT) : null;
+        if (nutrition != null) {
+            addToDay(day, 1, nutrition.getCalories(), nutrition.getSugar(), nutrition.getSalt(),
+                    nutrition.getSaturatedFat(), grade);
+        } else {
+            addToDay(day, 0, 0, 0, 0, 0, grade);
+        }
+    }
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertDay(NutritionDailyEntity day);
+
+    @Query("UPDATE nutrition_daily SET scans = scans + 1, "
+            + "scansWithNutrition = scansWithNutrition + :withNutrition, "
+            + "calories = calories + :calories, sugar = sugar + :sugar, salt = salt + :salt, "
+            + "saturatedFat = saturatedFat + :saturatedFat, "
+            + "gradeA = gradeA + (:grade IS 'A'), gradeB = gradeB + (:grade IS 'B'), "
+            + "gradeC = gradeC + (:grade IS 'C'), gradeD = gradeD + (:grade IS 'D'), "
+            + "gradeE = gradeE + (:grade IS 'E'), "
+            + "gradeUnknown = gradeUnknown + (:grade IS NULL OR :grade NOT IN ('A', 'B', 'C', 'D', 'E')) "
+            + "WHERE day = :day")
+    void addToDay(int day, int withNutrition, double calories, double sugar, double salt,
+                  double saturatedFat, String grade);
+
+    /**
+     * Adds nutrition to scans recorded before it was known: their scan_events
+     * rows get the values and their days' nutrition_daily totals count them.
+     * Call whenever full products are stored.
+     *
+     * @return number of scans backfilled
+     */
+    @Transaction
+    default int backfillNutrition(List<Product> products) {
+        Map<String, Nutrition> byBarcode = new HashMap<>();
+        for (Product product : products) {
+            if (product.getBarcode() != null && product.getNutrition() != null) {
+                byBarcode.put(product.getBarcode(), product.getNutrition());
+            }
+        }
+        List<String> barcodes = new ArrayList<>(byBarcode.keySet());
+        int filled = 0;
+        for (int start = 0; start < barcodes.size(); start += ProductDao.MAX_QUERY_ARGS) {
+            List<String> chunk = barcodes.subList(start, Math.min(barcodes.size(), start + ProductDao.MAX_QUERY_ARGS));
+            for (ScanEventEntity event : getEventsWithoutNutrition(chunk)) {
+                Nutrition n = byBarcode.get(event.barcode);
+                setEventNutrition(event.id, n.getCalories(), n.getSugar(), n.getSalt(), n.getSaturatedFat());
+                addNutritionToDay(NutritionDailyEntity.dayOf(event.scannedAt), n.getCalories(), n.getSugar(),
+                        n.getSalt(), n.getSaturatedFat());
+                filled++;
+            }
+        }
+        return filled;
+    }
+
+    @Query("SELECT * FROM scan_events WHERE barcode IN (:barcodes) AND calories IS NULL")
+    List<ScanEventEntity> getEventsWithoutNutrition(List<String> barcodes);
+
+    @Query("UPDATE scan_events SET calories = :calories, sugar = :sugar, salt = :salt, "
+            + "saturatedFat = :saturatedFat WHERE id = :id")
+    void setEventNutrition(long id, double calories, double sugar, double salt, double saturatedFat);
+
+    // The scan itself (and its grade) was counted when it was recorded
+    @Query("UPDATE nutrition_daily SET scansWithNutrition = scansWithNutrition + 1, "
+            + "calories = calories + :calories, sugar = sugar + :sugar, salt = salt + :salt, "
+            + "saturatedFat = saturatedFat + :saturatedFat WHERE day = :day")
+    void addNutritionToDay(int day, double calories, double sugar, double salt, double saturatedFat);
+
+    @Insert
+    void insertEvent(ScanEventEntity event);
+
+    @Query("SELECT * FROM scan_events WHERE barcode = :barcode ORDER BY scannedAt DESC LIMIT :limit")
+    List<ScanEventEntity> getEvents(String barcode, int limit);
+
+    @Query("SELECT COUNT(*) FROM scan_history")
+    int count();
+
+    @Query("SELECT COUNT(*) FROM scan_history WHERE isFavorite = 1")
+    int countFavorites();
+
+    @Query("SELECT barcode FROM scan_history WHERE isFavorite = 1 AND barcode IS NOT NULL")
+    List<String> getFavoriteBarcodes();
+
+    // Drops the oldest non-favorite rows beyond the newest :keep of them
+    @Query("DELETE FROM scan_history WHERE isFavorite = 0 AND id NOT IN "
+            + "(SELECT id FROM scan_history WHERE isFavorite = 0 ORDER BY scannedAt DESC LIMIT :keep)")
+    int trimNonFavorites(int keep);
+
+    @Query("DELETE FROM scan_events WHERE scannedAt < :before")
+    int deleteEventsBefore(long before);
+
+    // Everything but scans still waiting for backfillNutrition
+    @Query("DELETE FROM scan_events WHERE calories IS NOT NULL")
+    int deleteEventsWithNutrition();
+
+    // Events for products that are no longer in the history
+    @Query("DELETE FROM scan_events WHERE barcode NOT IN "
+            + "(SELECT barcode FROM scan_history WHERE barcode IS NOT NULL)")
+    int deleteOrphanEvents();
 }
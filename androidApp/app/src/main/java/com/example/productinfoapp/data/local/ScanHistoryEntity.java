@@ -1,9 +1,19 @@
 package com.example.productinfoapp.data.local;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "scan_history")
+// One row per barcode: a rescan updates the row and bumps scanCount, and
+// scannedAt is the latest scan. Individual scans go to scan_events.
+// Indexes follow ScanHistoryDao: lookups by barcode, lists sorted by scannedAt,
+// and the favorites tab (isFavorite = 1 ORDER BY scannedAt)
+@Entity(tableName = "scan_history", indices = {
+        @Index(value = "barcode", unique = true),
+        @Index("scannedAt"),
+        @Index({"isFavorite", "scannedAt"})
+})
 public class ScanHistoryEntity {
     @PrimaryKey(autoGenerate = true)
     public int id;
@@ -16,11 +26,17 @@ public class ScanHistoryEntity {
     public String nutriScoreGrade;
     public boolean isOrganic;
     public boolean isFavorite;
-    public long scannedAt;
+    public long scannedAt; // Last scan
+    @ColumnInfo(defaultValue = "0")
+    public long firstScannedAt;
+    @ColumnInfo(defaultValue = "1")
+    public int scanCount;
     public String source; // "local" or "OpenFoodFacts"
 
     public ScanHistoryEntity() {
         this.scannedAt = System.currentTimeMillis();
+        this.firstScannedAt = scannedAt;
+        this.scanCount = 1;
         this.isFavorite = false;
     }
 
@@ -38,4 +54,17 @@ public class ScanHistoryEntity {
         entity.source = source;
         return entity;
     }
+
+    // Folds a new scan of the same barcode into this row, keeping favorite and first scan
+    public void mergeScan(ScanHistoryEntity scan) {
+        productName = scan.productName;
+        brandName = scan.brandName;
+        imageUrl = scan.imageUrl;
+        healthScore = scan.healthScore;
+        nutriScoreGrade = scan.nutriScoreGrade;
+        isOrganic = scan.isOrganic;
+        source = scan.source;
+        scannedAt = Math.max(scannedAt, scan.scannedAt);
+        scanCount++;
+    }
 }
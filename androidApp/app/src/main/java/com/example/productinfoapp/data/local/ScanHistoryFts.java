@@ -0,0 +1,13 @@
+package com.example.productinfoapp.data.local;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// Full-text index over scan history, kept in sync like ProductFts
+@Fts4(contentEntity = ScanHistoryEntity.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "scan_history_fts")
+public class ScanHistoryFts {
+    public String productName;
+    public String brandName;
+}
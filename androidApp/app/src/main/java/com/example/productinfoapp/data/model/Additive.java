@@ -1,6 +1,10 @@
 package com.example.productinfoapp.data.model;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 import java.io.Serializable;
 
 public class Additive implements Serializable {
@@ -33,4 +37,48 @@ public class Additive implements Serializable {
             default: return 0xFF4CAF50; // Green
         }
     }
+
+    // Streaming adapter, see ModelJson
+    static final class JsonAdapter extends TypeAdapter<Additive> {
+        @Override
+        public Additive read(JsonReader in) throws IOException {
+            Additive a = new Additive();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": a.id = ModelJson.nextInt(in, a.id); break;
+                    case "code": a.code = ModelJson.nextInternedString(in); break;
+                    case "name": a.name = ModelJson.nextInternedString(in); break;
+                    case "riskLevel": a.riskLevel = ModelJson.nextInternedString(in); break;
+                    case "description": a.description = ModelJson.nextString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return a;
+        }
+
+        @Override
+        public void write(JsonWriter out, Additive a) throws IOException {
+            out.beginObject();
+            out.name("id").value(a.id);
+            out.name("code").value(a.code);
+            out.name("name").value(a.name);
+            out.name("riskLevel").value(a.riskLevel);
+            out.name("description").value(a.description);
+            out.endObject();
+        }
+    }
+
+    // Mask bits in field order: id, code, name, riskLevel, description
+    static Additive readPack(ProductPack.Reader in) {
+        Additive a = new Additive();
+        int mask = in.varint();
+        if ((mask & 1) != 0) a.id = in.zigzag();
+        if ((mask & 1 << 1) != 0) a.code = in.internedString();
+        if ((mask & 1 << 2) != 0) a.name = in.internedString();
+        if ((mask & 1 << 3) != 0) a.riskLevel = in.internedString();
+        if ((mask & 1 << 4) != 0) a.description = in.string();
+        return a;
+    }
 }
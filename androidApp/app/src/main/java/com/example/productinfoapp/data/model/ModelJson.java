@@ -0,0 +1,147 @@
+package com.example.productinfoapp.data.model;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hand-written streaming adapters for the model classes (the nested JsonAdapter
+// in each class), so responses are read token by token into fields instead of
+// through reflection, and unknown keys are skipped without building a tree.
+// Register with GsonBuilder.registerTypeAdapterFactory(ModelJson.FACTORY).
+public final class ModelJson {
+    // Small, low-cardinality values (grades, risk levels, units) repeat in every
+    // product; sharing one instance keeps cached lists smaller
+    private static final int MAX_INTERNED = 512;
+    private static final ConcurrentHashMap<String, String> interned = new ConcurrentHashMap<>();
+
+    public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            Class<? super T> raw = type.getRawType();
+            if (raw == Product.class) return (TypeAdapter<T>) new Product.JsonAdapter().nullSafe();
+            if (raw == Nutrition.class) return (TypeAdapter<T>) new Nutrition.JsonAdapter().nullSafe();
+            if (raw == Additive.class) return (TypeAdapter<T>) new Additive.JsonAdapter().nullSafe();
+            if (raw == Product.ScoreCategory.class) return (TypeAdapter<T>) new Product.ScoreCategory.JsonAdapter().nullSafe();
+            if (raw == ProductListResponse.class) return (TypeAdapter<T>) new ProductListResponse.JsonAdapter().nullSafe();
+            if (raw == ProductChangesResponse.class) return (TypeAdapter<T>) new ProductChangesResponse.JsonAdapter().nullSafe();
+            if (raw == ProductBatchResponse.class) return (TypeAdapter<T>) new ProductBatchResponse.JsonAdapter().nullSafe();
+            if (raw == ProductSummary.class) return (TypeAdapter<T>) new ProductSummary.JsonAdapter().nullSafe();
+            if (raw == ProductSummaryListResponse.class) return (TypeAdapter<T>) new ProductSummaryListResponse.JsonAdapter().nullSafe();
+            return null;
+        }
+    };
+
+    private ModelJson() {}
+
+    static String intern(String value) {
+        if (value == null || value.length() > 32) return value;
+        String shared = interned.get(value);
+        if (shared != null) return shared;
+        if (interned.size() >= MAX_INTERNED) return value;
+        shared = interned.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    // The read helpers below treat JSON null as "leave the default", like reflection does
+
+    static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static String nextInternedString(JsonReader in) throws IOException {
+        return intern(nextString(in));
+    }
+
+    static double nextDouble(JsonReader in, double fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextDouble();
+    }
+
+    static int nextInt(JsonReader in, int fallback) throws IOException {
+        return (int) nextDouble(in, fallback);
+    }
+
+    static long nextLong(JsonReader in, long fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextLong();
+    }
+
+    static boolean nextBoolean(JsonReader in, boolean fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextBoolean();
+    }
+
+    static <T> List<T> nextList(JsonReader in, TypeAdapter<T> element) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(element.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    static List<String> nextStringList(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(nextString(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> element) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T item : list) {
+            element.write(out, item);
+        }
+        out.endArray();
+    }
+
+    static void writeStringList(JsonWriter out, List<String> list) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String item : list) {
+            out.value(item);
+        }
+        out.endArray();
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.productinfoapp.data.model;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 import java.io.Serializable;
 
 public class Nutrition implements Serializable {
@@ -54,6 +58,60 @@ public class Nutrition implements Serializable {
     public void setFiber(double fiber) { this.fiber = fiber; }
     public void setServingSize(double servingSize) { this.servingSize = servingSize; }
     public void setServingUnit(String servingUnit) { this.servingUnit = servingUnit; }
-}
 
+    // Streaming adapter, see ModelJson
+    static final class JsonAdapter extends TypeAdapter<Nutrition> {
+        @Override
+        public Nutrition read(JsonReader in) throws IOException {
+            Nutrition n = new Nutrition();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "calories": n.calories = ModelJson.nextDouble(in, n.calories); break;
+                    case "sugar": n.sugar = ModelJson.nextDouble(in, n.sugar); break;
+                    case "fat": n.fat = ModelJson.nextDouble(in, n.fat); break;
+                    case "saturatedFat": n.saturatedFat = ModelJson.nextDouble(in, n.saturatedFat); break;
+                    case "salt": n.salt = ModelJson.nextDouble(in, n.salt); break;
+                    case "protein": n.protein = ModelJson.nextDouble(in, n.protein); break;
+                    case "fiber": n.fiber = ModelJson.nextDouble(in, n.fiber); break;
+                    case "servingSize": n.servingSize = ModelJson.nextDouble(in, n.servingSize); break;
+                    case "servingUnit": n.servingUnit = ModelJson.nextInternedString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return n;
+        }
+
+        @Override
+        public void write(JsonWriter out, Nutrition n) throws IOException {
+            out.beginObject();
+            out.name("calories").value(n.calories);
+            out.name("sugar").value(n.sugar);
+            out.name("fat").value(n.fat);
+            out.name("saturatedFat").value(n.saturatedFat);
+            out.name("salt").value(n.salt);
+            out.name("protein").value(n.protein);
+            out.name("fiber").value(n.fiber);
+            out.name("servingSize").value(n.servingSize);
+            out.name("servingUnit").value(n.servingUnit);
+            out.endObject();
+        }
+    }
 
+    // Bit i of the mask marks the i-th number below as present; bit 8 the unit
+    static Nutrition readPack(ProductPack.Reader in) {
+        Nutrition n = new Nutrition();
+        int mask = in.varint();
+        if ((mask & 1) != 0) n.calories = in.float64();
+        if ((mask & 1 << 1) != 0) n.sugar = in.float64();
+        if ((mask & 1 << 2) != 0) n.fat = in.float64();
+        if ((mask & 1 << 3) != 0) n.saturatedFat = in.float64();
+        if ((mask & 1 << 4) != 0) n.salt = in.float64();
+        if ((mask & 1 << 5) != 0) n.protein = in.float64();
+        if ((mask & 1 << 6) != 0) n.fiber = in.float64();
+        if ((mask & 1 << 7) != 0) n.servingSize = in.float64();
+        if ((mask & 1 << 8) != 0) n.servingUnit = in.internedString();
+        return n;
+    }
+}
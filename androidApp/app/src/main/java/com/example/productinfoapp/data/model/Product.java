@@ -1,7 +1,12 @@
 package com.example.productinfoapp.data.model;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Product implements Serializable {
@@ -63,6 +68,25 @@ public class Product implements Serializable {
     public ScoreCategory getScoreCategory() { return scoreCategory; }
     public List<Additive> getAdditives() { return additives; }
 
+    public long getStableId() {
+        return stableIdOf(id);
+    }
+
+    // Stable RecyclerView id: the low 8 bytes of the ObjectId, which hold its
+    // random part and counter; falls back to hashCode for ids that aren't ObjectIds
+    static long stableIdOf(String id) {
+        if (id == null) return -1; // RecyclerView.NO_ID
+        if (id.length() == 24) {
+            try {
+                return (Long.parseLong(id.substring(8, 16), 16) << 32)
+                        | Long.parseLong(id.substring(16), 16);
+            } catch (NumberFormatException ignored) {
+                // Not hex, use the hash below
+            }
+        }
+        return id.hashCode();
+    }
+
     // Default constructor for Gson and Room
     public Product() {}
 
@@ -89,6 +113,136 @@ public class Product implements Serializable {
 
         public String getLabel() { return label; }
         public String getColor() { return color; }
+
+        static final class JsonAdapter extends TypeAdapter<ScoreCategory> {
+            @Override
+            public ScoreCategory read(JsonReader in) throws IOException {
+                ScoreCategory c = new ScoreCategory();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "label": c.label = ModelJson.nextInternedString(in); break;
+                        case "color": c.color = ModelJson.nextInternedString(in); break;
+                        default: in.skipValue();
+                    }
+                }
+                in.endObject();
+                return c;
+            }
+
+            @Override
+            public void write(JsonWriter out, ScoreCategory c) throws IOException {
+                out.beginObject();
+                out.name("label").value(c.label);
+                out.name("color").value(c.color);
+                out.endObject();
+            }
+        }
+
+        static ScoreCategory readPack(ProductPack.Reader in) {
+            ScoreCategory c = new ScoreCategory();
+            c.label = in.optionalInternedString();
+            c.color = in.optionalInternedString();
+            return c;
+        }
+    }
+
+    // Streaming adapter, see ModelJson. Unknown keys (category, createdAt,
+    // updatedAt, __v, the virtual id) are skipped without being parsed.
+    static final class JsonAdapter extends TypeAdapter<Product> {
+        private final TypeAdapter<Nutrition> nutritionAdapter = new Nutrition.JsonAdapter().nullSafe();
+        private final TypeAdapter<ScoreCategory> categoryAdapter = new ScoreCategory.JsonAdapter().nullSafe();
+        private final TypeAdapter<Additive> additiveAdapter = new Additive.JsonAdapter().nullSafe();
+
+        @Override
+        public Product read(JsonReader in) throws IOException {
+            Product p = new Product();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "_id": p.id = ModelJson.nextString(in); break;
+                    case "barcode": p.barcode = ModelJson.nextString(in); break;
+                    case "name": p.name = ModelJson.nextString(in); break;
+                    case "brand": p.brand = ModelJson.nextInternedString(in); break;
+                    case "imageUrl": p.imageUrl = ModelJson.nextString(in); break;
+                    case "ingredients": p.ingredients = ModelJson.nextString(in); break;
+                    case "score": p.score = (float) ModelJson.nextDouble(in, p.score); break;
+                    case "calculatedScore": p.calculatedScore = ModelJson.nextInt(in, p.calculatedScore); break;
+                    case "isOrganic": p.isOrganic = ModelJson.nextBoolean(in, p.isOrganic); break;
+                    case "nutriScore": p.nutriScore = ModelJson.nextInternedString(in); break;
+                    case "nutriScoreGrade": p.nutriScoreGrade = ModelJson.nextInternedString(in); break;
+                    case "nutrition": p.nutrition = nutritionAdapter.read(in); break;
+                    case "scoreCategory": p.scoreCategory = categoryAdapter.read(in); break;
+                    case "additives": p.additives = ModelJson.nextList(in, additiveAdapter); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return p;
+        }
+
+        @Override
+        public void write(JsonWriter out, Product p) throws IOException {
+            out.beginObject();
+            out.name("_id").value(p.id);
+            out.name("barcode").value(p.barcode);
+            out.name("name").value(p.name);
+            out.name("brand").value(p.brand);
+            out.name("imageUrl").value(p.imageUrl);
+            out.name("ingredients").value(p.ingredients);
+            out.name("score").value(p.score);
+            out.name("calculatedScore").value(p.calculatedScore);
+            out.name("isOrganic").value(p.isOrganic);
+            out.name("nutriScore").value(p.nutriScore);
+            out.name("nutriScoreGrade").value(p.nutriScoreGrade);
+            out.name("nutrition");
+            nutritionAdapter.write(out, p.nutrition);
+            out.name("scoreCategory");
+            categoryAdapter.write(out, p.scoreCategory);
+            out.name("additives");
+            ModelJson.writeList(out, p.additives, additiveAdapter);
+            out.endObject();
+        }
     }
-}
 
+    // Field mask bits of a packed product, see ProductPack
+    static final int PACK_ID = 1;
+    static final int PACK_BARCODE = 1 << 1;
+    static final int PACK_NAME = 1 << 2;
+    static final int PACK_BRAND = 1 << 3;
+    static final int PACK_IMAGE_URL = 1 << 4;
+    static final int PACK_INGREDIENTS = 1 << 5;
+    static final int PACK_SCORE = 1 << 6;
+    static final int PACK_CALCULATED_SCORE = 1 << 7;
+    static final int PACK_ORGANIC = 1 << 8;
+    static final int PACK_NUTRI_SCORE = 1 << 9;
+    static final int PACK_NUTRI_SCORE_GRADE = 1 << 10;
+    static final int PACK_SCORE_CATEGORY = 1 << 11;
+    static final int PACK_NUTRITION = 1 << 12;
+    static final int PACK_ADDITIVES = 1 << 13;
+    static final int PACK_ID_IS_OBJECT_ID = 1 << 14;
+
+    static Product readPack(ProductPack.Reader in) {
+        Product p = new Product();
+        int mask = in.varint();
+        if ((mask & PACK_ID) != 0) p.id = (mask & PACK_ID_IS_OBJECT_ID) != 0 ? in.objectId() : in.string();
+        if ((mask & PACK_BARCODE) != 0) p.barcode = in.string();
+        if ((mask & PACK_NAME) != 0) p.name = in.string();
+        if ((mask & PACK_BRAND) != 0) p.brand = in.internedString();
+        if ((mask & PACK_IMAGE_URL) != 0) p.imageUrl = in.string();
+        if ((mask & PACK_INGREDIENTS) != 0) p.ingredients = in.string();
+        if ((mask & PACK_SCORE) != 0) p.score = (float) in.float64();
+        if ((mask & PACK_CALCULATED_SCORE) != 0) p.calculatedScore = in.zigzag();
+        p.isOrganic = (mask & PACK_ORGANIC) != 0;
+        if ((mask & PACK_NUTRI_SCORE) != 0) p.nutriScore = in.internedString();
+        if ((mask & PACK_NUTRI_SCORE_GRADE) != 0) p.nutriScoreGrade = in.internedString();
+        if ((mask & PACK_SCORE_CATEGORY) != 0) p.scoreCategory = ScoreCategory.readPack(in);
+        if ((mask & PACK_NUTRITION) != 0) p.nutrition = Nutrition.readPack(in);
+        if ((mask & PACK_ADDITIVES) != 0) {
+            int count = in.varint();
+            p.additives = new ArrayList<>(Math.min(count, 64));
+            for (int i = 0; i < count; i++) p.additives.add(Additive.readPack(in));
+        }
+        return p;
+    }
+}
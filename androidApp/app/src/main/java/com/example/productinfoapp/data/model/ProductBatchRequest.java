@@ -0,0 +1,20 @@
+package com.example.productinfoapp.data.model;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+public class ProductBatchRequest {
+    @SerializedName("ids")
+    private final List<String> ids;
+
+    @SerializedName("barcodes")
+    private final List<String> barcodes;
+
+    public ProductBatchRequest(List<String> ids, List<String> barcodes) {
+        this.ids = ids;
+        this.barcodes = barcodes;
+    }
+
+    public List<String> getIds() { return ids; }
+    public List<String> getBarcodes() { return barcodes; }
+}
@@ -0,0 +1,64 @@
+package com.example.productinfoapp.data.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.List;
+
+public class ProductBatchResponse {
+    @SerializedName("products")
+    private List<Product> products;
+
+    @SerializedName("missingIds")
+    private List<String> missingIds;
+
+    @SerializedName("missingBarcodes")
+    private List<String> missingBarcodes;
+
+    public List<Product> getProducts() { return products; }
+    public List<String> getMissingIds() { return missingIds; }
+    public List<String> getMissingBarcodes() { return missingBarcodes; }
+
+    // Streaming adapter, see ModelJson
+    static final class JsonAdapter extends TypeAdapter<ProductBatchResponse> {
+        private final TypeAdapter<Product> productAdapter = new Product.JsonAdapter().nullSafe();
+
+        @Override
+        public ProductBatchResponse read(JsonReader in) throws IOException {
+            ProductBatchResponse r = new ProductBatchResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "products": r.products = ModelJson.nextList(in, productAdapter); break;
+                    case "missingIds": r.missingIds = ModelJson.nextStringList(in); break;
+                    case "missingBarcodes": r.missingBarcodes = ModelJson.nextStringList(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return r;
+        }
+
+        @Override
+        public void write(JsonWriter out, ProductBatchResponse r) throws IOException {
+            out.beginObject();
+            out.name("products");
+            ModelJson.writeList(out, r.products, productAdapter);
+            out.name("missingIds");
+            ModelJson.writeStringList(out, r.missingIds);
+            out.name("missingBarcodes");
+            ModelJson.writeStringList(out, r.missingBarcodes);
+            out.endObject();
+        }
+    }
+
+    static ProductBatchResponse readPack(ProductPack.Reader in) {
+        ProductBatchResponse r = new ProductBatchResponse();
+        r.products = in.products();
+        r.missingIds = in.strings();
+        r.missingBarcodes = in.strings();
+        return r;
+    }
+}
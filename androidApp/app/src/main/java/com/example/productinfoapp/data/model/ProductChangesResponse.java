@@ -0,0 +1,67 @@
+package com.example.productinfoapp.data.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.List;
+
+public class ProductChangesResponse {
+    @SerializedName("products")
+    private List<Product> products;
+
+    @SerializedName("deleted")
+    private List<String> deleted;
+
+    @SerializedName("nextSince")
+    private long nextSince;
+
+    @SerializedName("nextAfterId")
+    private String nextAfterId;
+
+    @SerializedName("hasMore")
+    private boolean hasMore;
+
+    public List<Product> getProducts() { return products; }
+    public List<String> getDeleted() { return deleted; }
+    public long getNextSince() { return nextSince; }
+    public String getNextAfterId() { return nextAfterId; }
+    public boolean hasMore() { return hasMore; }
+
+    // Streaming adapter, see ModelJson
+    static final class JsonAdapter extends TypeAdapter<ProductChangesResponse> {
+        private final TypeAdapter<Product> productAdapter = new Product.JsonAdapter().nullSafe();
+
+        @Override
+        public ProductChangesResponse read(JsonReader in) throws IOException {
+            ProductChangesResponse r = new ProductChangesResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "products": r.products = ModelJson.nextList(in, productAdapter); break;
+                    case "deleted": r.deleted = ModelJson.nextStringList(in); break;
+                    case "nextSince": r.nextSince = ModelJson.nextLong(in, r.nextSince); break;
+                    case "nextAfterId": r.nextAfterId = ModelJson.nextString(in); break;
+                    case "hasMore": r.hasMore = ModelJson.nextBoolean(in, r.hasMore); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return r;
+        }
+
+        @Override
+        public void write(JsonWriter out, ProductChangesResponse r) throws IOException {
+            out.beginObject();
+            out.name("products");
+            ModelJson.writeList(out, r.products, productAdapter);
+            out.name("deleted");
+            ModelJson.writeStringList(out, r.deleted);
+            out.name("nextSince").value(r.nextSince);
+            out.name("nextAfterId").value(r.nextAfterId);
+            out.name("hasMore").value(r.hasMore);
+            out.endObject();
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.productinfoapp.data.model;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 import java.util.List;
 
 public class ProductListResponse {
@@ -24,4 +28,49 @@ public class ProductListResponse {
     public int getLimit() { return limit; }
     public int getOffset() { return offset; }
     public boolean hasMore() { return hasMore; }
+
+    // Streaming adapter, see ModelJson
+    static final class JsonAdapter extends TypeAdapter<ProductListResponse> {
+        private final TypeAdapter<Product> productAdapter = new Product.JsonAdapter().nullSafe();
+
+        @Override
+        public ProductListResponse read(JsonReader in) throws IOException {
+            ProductListResponse r = new ProductListResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "products": r.products = ModelJson.nextList(in, productAdapter); break;
+                    case "total": r.total = ModelJson.nextInt(in, r.total); break;
+                    case "limit": r.limit = ModelJson.nextInt(in, r.limit); break;
+                    case "offset": r.offset = ModelJson.nextInt(in, r.offset); break;
+                    case "hasMore": r.hasMore = ModelJson.nextBoolean(in, r.hasMore); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return r;
+        }
+
+        @Override
+        public void write(JsonWriter out, ProductListResponse r) throws IOException {
+            out.beginObject();
+            out.name("products");
+            ModelJson.writeList(out, r.products, productAdapter);
+            out.name("total").value(r.total);
+            out.name("limit").value(r.limit);
+            out.name("offset").value(r.offset);
+            out.name("hasMore").value(r.hasMore);
+            out.endObject();
+        }
+    }
+
+    static ProductListResponse readPack(ProductPack.Reader in) {
+        ProductListResponse r = new ProductListResponse();
+        r.total = in.varint();
+        r.limit = in.varint();
+        r.offset = in.varint();
+        r.hasMore = in.bool();
+        r.products = in.products();
+        return r;
+    }
 }
@@ -0,0 +1,174 @@
+package com.example.productinfoapp.data.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Decoder for the backend's compact binary product encoding (backend
+// utils/productPack.js has the full layout). Field names are implied by a bit
+// mask per object and every string is sent once in a table up front, so a
+// 100-item page is a fraction of its JSON size and decodes without tokenizing.
+// Each model class reads its own fields in a static readPack, next to its
+// JsonAdapter.
+public final class ProductPack {
+    public static final String CONTENT_TYPE = "application/x-product-pack";
+
+    private static final int MAGIC = 0x5050414B; // "PPAK"
+    private static final int VERSION = 1;
+
+    static final int KIND_LIST = 1;
+    static final int KIND_PRODUCTS = 2;
+    static final int KIND_BATCH = 3;
+    static final int KIND_PRODUCT = 4;
+
+    private ProductPack() {}
+
+    public static ProductListResponse readList(byte[] data) throws IOException {
+        return read(data, KIND_LIST, ProductListResponse::readPack);
+    }
+
+    public static ProductBatchResponse readBatch(byte[] data) throws IOException {
+        return read(data, KIND_BATCH, ProductBatchResponse::readPack);
+    }
+
+    public static List<Product> readProducts(byte[] data) throws IOException {
+        return read(data, KIND_PRODUCTS, Reader::products);
+    }
+
+    public static ProductSummaryListResponse readSummaryList(byte[] data) throws IOException {
+        return read(data, KIND_LIST, ProductSummaryListResponse::readPack);
+    }
+
+    public static List<ProductSummary> readSummaries(byte[] data) throws IOException {
+        return read(data, KIND_PRODUCTS, Reader::summaries);
+    }
+
+    public static Product readProduct(byte[] data) throws IOException {
+        return read(data, KIND_PRODUCT, Product::readPack);
+    }
+
+    interface Body<T> {
+        T read(Reader in);
+    }
+
+    private static <T> T read(byte[] data, int expectedKind, Body<T> body) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a product pack");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported product pack version " + version);
+            int kind = buffer.get() & 0xFF;
+            if (kind != expectedKind) throw new IOException("Expected pack kind " + expectedKind + ", got " + kind);
+            return body.read(new Reader(buffer));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed product pack", e);
+        }
+    }
+
+    // Cursor over the body, with the string table already decoded. Malformed
+    // input throws unchecked exceptions, which read() turns into IOException.
+    static final class Reader {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        // Shared instances for low-cardinality fields, filled on first use
+        private final String[] interned;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            int count = varint();
+            if (count < 0 || count > buffer.remaining()) throw new BufferUnderflowException();
+            strings = new String[count];
+            interned = new String[count];
+            for (int i = 0; i < count; i++) {
+                int length = varint();
+                if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+                strings[i] = new String(buffer.array(),
+                        buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        int varint() {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = buffer.get() & 0xFF;
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        int zigzag() {
+            int v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        boolean bool() {
+            return buffer.get() != 0;
+        }
+
+        double float64() {
+            return buffer.getDouble();
+        }
+
+        String string() {
+            return strings[varint()];
+        }
+
+        // For the same fields the JSON adapters intern (grades, units, risk
+        // levels, brands); barcodes and names would only crowd the pool
+        String internedString() {
+            return interned(varint());
+        }
+
+        // 0 = null, otherwise table index + 1
+        String optionalInternedString() {
+            int ref = varint();
+            return ref == 0 ? null : interned(ref - 1);
+        }
+
+        private String interned(int index) {
+            String value = interned[index];
+            if (value == null) {
+                value = ModelJson.intern(strings[index]);
+                interned[index] = value;
+            }
+            return value;
+        }
+
+        // 12 raw bytes, rendered as the 24-char hex form the JSON uses
+        String objectId() {
+            char[] hex = new char[24];
+            for (int i = 0; i < 12; i++) {
+                int b = buffer.get() & 0xFF;
+                hex[i * 2] = Character.forDigit(b >>> 4, 16);
+                hex[i * 2 + 1] = Character.forDigit(b & 0xF, 16);
+            }
+            return new String(hex);
+        }
+
+        List<Product> products() {
+            int count = varint();
+            List<Product> products = new ArrayList<>(Math.min(count, buffer.remaining()));
+            for (int i = 0; i < count; i++) products.add(Product.readPack(this));
+            return products;
+        }
+
+        List<ProductSummary> summaries() {
+            int count = varint();
+            List<ProductSummary> summaries = new ArrayList<>(Math.min(count, buffer.remaining()));
+            for (int i = 0; i < count; i++) summaries.add(ProductSummary.readPack(this));
+            return summaries;
+        }
+
+        List<String> strings() {
+            int count = varint();
+            List<String> values = new ArrayList<>(Math.min(count, buffer.remaining()));
+            for (int i = 0; i < count; i++) values.add(string());
+            return values;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.productinfoapp.data.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Objects;
+
+// What a list row needs: the backend's view=summary projection, and the Room
+// projection the list screens read. The full Product (ingredients, nutrition,
+// additives) is only loaded by the detail screen.
+public class ProductSummary {
+    @SerializedName("_id")
+    private String id;
+
+    @SerializedName("barcode")
+    private String barcode;
+
+    @SerializedName("name")
+    private String name;
+
+    @SerializedName("brand")
+    private String brand;
+
+    @SerializedName("imageUrl")
+    private String imageUrl;
+
+    @SerializedName("score")
+    private float score;
+
+    @SerializedName("nutriScore")
+    private String nutriScore;
+
+    @SerializedName("isOrganic")
+    private boolean isOrganic;
+
+    // Default constructor for Gson and Room
+    public ProductSummary() {}
+
+    public String getId() { return id; }
+    public String getBarcode() { return barcode; }
+    public String getName() { return name; }
+    public String getBrand() { return brand; }
+    public String getImageUrl() { return imageUrl; }
+    public float getScore() { return score; }
+    public String getNutriScore() { return nutriScore; }
+    public boolean isOrganic() { return isOrganic; }
+
+    // The list fields of a Product, e.g. one decoded from the barcode index
+    public static ProductSummary of(Product product) {
+        ProductSummary s = new ProductSummary();
+        s.id = product.getId();
+        s.barcode = product.getBarcode();
+        s.name = product.getName();
+        s.brand = product.getBrand();
+        s.imageUrl = product.getImageUrl();
+        s.score = product.getScore();
+        s.nutriScore = product.getNutriScore();
+        s.isOrganic = product.isOrganic();
+        return s;
+    }
+
+    public long getStableId() {
+        return Product.stableIdOf(id);
+    }
+
+    // Setters (required by Room)
+    public void setId(String id) { this.id = id; }
+    public void setBarcode(String barcode) { this.barcode = barcode; }
+    public void setName(String name) { this.name = name; }
+    public void setBrand(String brand) { this.brand = brand; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+    public void setScore(float score) { this.score = score; }
+    public void setNutriScore(String nutriScore) { this.nutriScore = nutriScore; }
+    public void setOrganic(boolean organic) { this.isOrganic = organic; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProductSummary)) return false;
+        ProductSummary other = (ProductSummary) o;
+        return Float.compare(score, other.score) == 0
+                && isOrganic == other.isOrganic
+                && Objects.equals(id, other.id)
+                && Objects.equals(barcode, other.barcode)
+                && Objects.equals(name, other.name)
+                && Objects.equals(brand, other.brand)
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(nutriScore, other.nutriScore);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, barcode, name, brand, imageUrl, score, nutriScore, isOrganic);
+    }
+
+    // Streaming adapter, see ModelJson. Full-product keys are skipped unparsed.
+    static final class JsonAdapter extends TypeAdapter<ProductSummary> {
+        @Override
+        public ProductSummary read(JsonReader in) throws IOException {
+            ProductSummary s = new ProductSummary();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "_id": s.id = ModelJson.nextString(in); break;
+                    case "barcode": s.barcode = ModelJson.nextString(in); break;
+                    case "name": s.name = ModelJson.nextString(in); break;
+                    case "brand": s.brand = ModelJson.nextInternedString(in); break;
+                    case "imageUrl": s.imageUrl = ModelJson.nextString(in); break;
+                    case "score": s.score = (float) ModelJson.nextDouble(in, s.score); break;
+                    case "nutriScore": s.nutriScore = ModelJson.nextInternedString(in); break;
+                    case "isOrganic": s.isOrganic = ModelJson.nextBoolean(in, s.isOrganic); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return s;
+        }
+
+        @Override
+        public void write(JsonWriter out, ProductSummary s) throws IOException {
+            out.beginObject();
+            out.name("_id").value(s.id);
+            out.name("barcode").value(s.barcode);
+            out.name("name").value(s.name);
+            out.name("brand").value(s.brand);
+            out.name("imageUrl").value(s.imageUrl);
+            out.name("score").value(s.score);
+            out.name("nutriScore").value(s.nutriScore);
+            out.name("isOrganic").value(s.isOrganic);
+            out.endObject();
+        }
+    }
+
+    // Same wire layout as Product; fields a summary doesn't keep are read and
+    // dropped, so a full response from an older backend still decodes
+    static ProductSummary readPack(ProductPack.Reader in) {
+        ProductSummary s = new ProductSummary();
+        int mask = in.varint();
+        if ((mask & Product.PACK_ID) != 0) {
+            s.id = (mask & Product.PACK_ID_IS_OBJECT_ID) != 0 ? in.objectId() : in.string();
+        }
+        if ((mask & Product.PACK_BARCODE) != 0) s.barcode = in.string();
+        if ((mask & Product.PACK_NAME) != 0) s.name = in.string();
+        if ((mask & Product.PACK_BRAND) != 0) s.brand = in.internedString();
+        if ((mask & Product.PACK_IMAGE_URL) != 0) s.imageUrl = in.string();
+        if ((mask & Product.PACK_INGREDIENTS) != 0) in.string();
+        if ((mask & Product.PACK_SCORE) != 0) s.score = (float) in.float64();
+        if ((mask & Product.PACK_CALCULATED_SCORE) != 0) in.zigzag();
+        s.isOrganic = (mask & Product.PACK_ORGANIC) != 0;
+        if ((mask & Product.PACK_NUTRI_SCORE) != 0) s.nutriScore = in.internedString();
+        if ((mask & Product.PACK_NUTRI_SCORE_GRADE) != 0) in.string();
+        if ((mask & Product.PACK_SCORE_CATEGORY) != 0) Product.ScoreCategory.readPack(in);
+        if ((mask & Product.PACK_NUTRITION) != 0) Nutrition.readPack(in);
+        if ((mask & Product.PACK_ADDITIVES) != 0) {
+            int count = in.varint();
+            for (int i = 0; i < count; i++) Additive.readPack(in);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.productinfoapp.data.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.List;
+
+// A page of GET /products?view=summary; paging fields as in ProductListResponse
+public class ProductSummaryListResponse {
+    @SerializedName("products")
+    private List<ProductSummary> products;
+
+    @SerializedName("total")
+    private int total;
+
+    @SerializedName("limit")
+    private int limit;
+
+    @SerializedName("offset")
+    private int offset;
+
+    @SerializedName("hasMore")
+    private boolean hasMore;
+
+    public List<ProductSummary> getProducts() { return products; }
+    public int getTotal() { return total; }
+    public int getLimit() { return limit; }
+    public int getOffset() { return offset; }
+    public boolean hasMore() { return hasMore; }
+
+    // Streaming adapter, see ModelJson
+    static final class JsonAdapter extends TypeAdapter<ProductSummaryListResponse> {
+        private final TypeAdapter<ProductSummary> summaryAdapter = new ProductSummary.JsonAdapter().nullSafe();
+
+        @Override
+        public ProductSummaryListResponse read(JsonReader in) throws IOException {
+            ProductSummaryListResponse r = new ProductSummaryListResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "products": r.products = ModelJson.nextList(in, summaryAdapter); break;
+                    case "total": r.total = ModelJson.nextInt(in, r.total); break;
+                    case "limit": r.limit = ModelJson.nextInt(in, r.limit); break;
+                    case "offset": r.offset = ModelJson.nextInt(in, r.offset); break;
+                    case "hasMore": r.hasMore = ModelJson.nextBoolean(in, r.hasMore); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return r;
+        }
+
+        @Override
+        public void write(JsonWriter out, ProductSummaryListResponse r) throws IOException {
+            out.beginObject();
+            out.name("products");
+            ModelJson.writeList(out, r.products, summaryAdapter);
+            out.name("total").value(r.total);
+            out.name("limit").value(r.limit);
+            out.name("offset").value(r.offset);
+            out.name("hasMore").value(r.hasMore);
+            out.endObject();
+        }
+    }
+
+    static ProductSummaryListResponse readPack(ProductPack.Reader in) {
+        ProductSummaryListResponse r = new ProductSummaryListResponse();
+        r.total = in.varint();
+        r.limit = in.varint();
+        r.offset = in.varint();
+        r.hasMore = in.bool();
+        r.products = in.summaries();
+        return r;
+    }
+}
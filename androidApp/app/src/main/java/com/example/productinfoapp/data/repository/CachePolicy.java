@@ -0,0 +1,69 @@
+package com.example.productinfoapp.data.repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stale-while-revalidate policy for cached product rows.
+// Fresh rows are served as-is, stale rows are served and refreshed in the
+// background, and only missing rows wait on the network.
+public class CachePolicy {
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    public enum Decision { HIT, REVALIDATE, MISS }
+
+    private static volatile CachePolicy productDetailPolicy;
+
+    private volatile long ttlMillis;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+
+    public CachePolicy(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public static CachePolicy forProductDetail() {
+        if (productDetailPolicy == null) {
+            synchronized (CachePolicy.class) {
+                if (productDetailPolicy == null) {
+                    productDetailPolicy = new CachePolicy(DEFAULT_TTL_MILLIS);
+                }
+            }
+        }
+        return productDetailPolicy;
+    }
+
+    // fetchedAt <= 0 means the row is missing (or predates freshness tracking)
+    public Decision evaluate(boolean cached, long fetchedAt) {
+        if (!cached) {
+            misses.incrementAndGet();
+            return Decision.MISS;
+        }
+        long age = System.currentTimeMillis() - fetchedAt;
+        if (fetchedAt <= 0 || age > ttlMillis) {
+            revalidations.incrementAndGet();
+            return Decision.REVALIDATE;
+        }
+        hits.incrementAndGet();
+        return Decision.HIT;
+    }
+
+    public long getTtlMillis() { return ttlMillis; }
+    public void setTtlMillis(long ttlMillis) { this.ttlMillis = ttlMillis; }
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getRevalidateCount() { return revalidations.get(); }
+
+    public void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+        revalidations.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "CachePolicy{ttl=" + ttlMillis + "ms, hits=" + hits.get()
+                + ", misses=" + misses.get() + ", revalidations=" + revalidations.get() + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.productinfoapp.data.repository;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import com.example.productinfoapp.data.local.AppDatabase;
+import com.example.productinfoapp.data.local.ScanHistoryDao;
+import com.example.productinfoapp.util.AppExecutors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded retention for the scan history. Keeps at most maxEntries history rows
+// (favorites are never removed, only the oldest other rows), and trims the
+// per-scan event log by age and to products still in the history.
+public class HistoryCompactor {
+    private static final String TAG = "HistoryCompactor";
+
+    public static final int DEFAULT_MAX_ENTRIES = 500;
+    public static final long DEFAULT_EVENT_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(90);
+    // Scans arrive one at a time, so there is no need to compact after each one
+    private static final long MIN_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static volatile HistoryCompactor INSTANCE;
+
+    private final ScanHistoryDao historyDao;
+    private final AppExecutors executors;
+    private final int maxEntries;
+    private final long eventRetentionMillis;
+    private final boolean eventLogEnabled;
+    private final AtomicLong lastRun = new AtomicLong(-MIN_INTERVAL_MILLIS);
+
+    public HistoryCompactor(ScanHistoryDao historyDao, AppExecutors executors,
+                            int maxEntries, long eventRetentionMillis, boolean eventLogEnabled) {
+        this.historyDao = historyDao;
+        this.executors = executors;
+        this.maxEntries = maxEntries;
+        this.eventRetentionMillis = eventRetentionMillis;
+        this.eventLogEnabled = eventLogEnabled;
+    }
+
+    public static HistoryCompactor getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (HistoryCompactor.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new HistoryCompactor(
+                            AppDatabase.getInstance(context).scanHistoryDao(), AppExecutors.getInstance(),
+                            DEFAULT_MAX_ENTRIES, DEFAULT_EVENT_RETENTION_MILLIS, true);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // Whether scans should also be appended to the scan_events log
+    public boolean isEventLogEnabled() {
+        return eventLogEnabled;
+    }
+
+    // Queues a compaction on the disk-io thread unless one ran recently
+    public void compactIfDue() {
+        long now = SystemClock.elapsedRealtime();
+        long last = lastRun.get();
+        if (now - last < MIN_INTERVAL_MILLIS || !lastRun.compareAndSet(last, now)) return;
+        executors.diskIO().execute(this::compact);
+    }
+
+    // Blocking; call off the main thread
+    void compact() {
+        int removedRows = 0;
+        int total = historyDao.count();
+        if (total > maxEntries) {
+            int keep = Math.max(0, maxEntries - historyDao.countFavorites());
+            removedRows = historyDao.trimNonFavorites(keep);
+        }
+        int removedEvents = historyDao.deleteOrphanEvents();
+        removedEvents += historyDao.deleteEventsBefore(System.currentTimeMillis() - eventRetentionMillis);
+        if (!eventLogEnabled) {
+            // Scans still missing nutrition stay until backfilled or aged out
+            removedEvents += historyDao.deleteEventsWithNutrition();
+        }
+        Log.d(TAG, "Removed " + removedRows + " history rows and " + removedEvents + " events");
+    }
+}
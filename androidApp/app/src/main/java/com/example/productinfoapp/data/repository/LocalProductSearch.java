@@ -0,0 +1,113 @@
+package com.example.productinfoapp.data.repository;
+
+import com.example.productinfoapp.data.local.ProductDao;
+import com.example.productinfoapp.data.local.ProductSearchRow;
+import com.example.productinfoapp.data.local.ScanHistoryDao;
+import com.example.productinfoapp.data.local.ScanHistoryEntity;
+import com.example.productinfoapp.data.model.ProductSummary;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Ranked full-text search over the local products_fts / scan_history_fts tables.
+// Blocking, so call it from a background executor.
+public class LocalProductSearch {
+    public static final int MAX_RESULTS = 50;
+    private static final int CANDIDATES = 200;
+
+    // products_fts column weights: name, brand, ingredients
+    private static final double[] COLUMN_WEIGHTS = {3.0, 2.0, 0.5};
+    // Products the user has scanned before rank above other matches
+    private static final double HISTORY_BONUS = 10.0;
+
+    private final ProductDao productDao;
+    private final ScanHistoryDao historyDao;
+
+    public LocalProductSearch(ProductDao productDao, ScanHistoryDao historyDao) {
+        this.productDao = productDao;
+        this.historyDao = historyDao;
+    }
+
+    public List<ProductSummary> search(String query) {
+        String ftsQuery = toFtsQuery(query);
+        if (ftsQuery == null) return new ArrayList<>();
+
+        List<ProductSearchRow> rows = productDao.search(ftsQuery, CANDIDATES);
+
+        Set<String> scannedBarcodes = new HashSet<>();
+        for (ScanHistoryEntity entry : historyDao.search(ftsQuery, CANDIDATES)) {
+            if (entry.barcode != null) scannedBarcodes.add(entry.barcode);
+        }
+
+        Map<String, ProductSummary> byId = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (ProductSearchRow row : rows) {
+            double score = score(row.matchInfo);
+            String id = row.product.getId();
+            if (row.product.getBarcode() != null && scannedBarcodes.remove(row.product.getBarcode())) {
+                score += HISTORY_BONUS;
+            }
+            byId.put(id, row.product);
+            scores.put(id, score);
+        }
+        // History hits whose product row didn't match (e.g. renamed since the scan)
+        if (!scannedBarcodes.isEmpty()) {
+            for (ProductSummary summary : productDao.getSummariesByBarcodes(new ArrayList<>(scannedBarcodes))) {
+                if (!byId.containsKey(summary.getId())) {
+                    byId.put(summary.getId(), summary);
+                    scores.put(summary.getId(), HISTORY_BONUS);
+                }
+            }
+        }
+
+        List<String> ids = new ArrayList<>(byId.keySet());
+        Collections.sort(ids, (a, b) -> Double.compare(scores.get(b), scores.get(a)));
+
+        List<ProductSummary> results = new ArrayList<>(Math.min(ids.size(), MAX_RESULTS));
+        for (int i = 0; i < ids.size() && i < MAX_RESULTS; i++) {
+            results.add(byId.get(ids.get(i)));
+        }
+        return results;
+    }
+
+    // "choc noir" -> "choc* noir*": every term must match, each as a prefix
+    public static String toFtsQuery(String query) {
+        if (query == null) return null;
+        StringBuilder fts = new StringBuilder();
+        for (String term : query.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (term.isEmpty()) continue;
+            if (fts.length() > 0) fts.append(' ');
+            fts.append(term).append('*');
+        }
+        return fts.length() > 0 ? fts.toString() : null;
+    }
+
+    // tf-idf style score from matchinfo('pcx'): for each phrase and column,
+    // hits in this row relative to hits across all rows, weighted by column
+    static double score(byte[] matchInfo) {
+        if (matchInfo == null || matchInfo.length < 8) return 0;
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                int base = 8 + 12 * (p * columns + c);
+                if (base + 8 > matchInfo.length) return score;
+                int rowHits = buffer.getInt(base);
+                int allHits = buffer.getInt(base + 4);
+                if (rowHits > 0 && allHits > 0) {
+                    double weight = c < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[c] : 1.0;
+                    score += weight * rowHits / allHits;
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.productinfoapp.data.repository;
+
+import com.example.productinfoapp.data.model.ProductSummary;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Turns freshly queried summary rows into the list to publish, reusing the
+// instance published last time for any row whose content is unchanged, so
+// unchanged rows keep their identity for the adapter and the old copies can be
+// collected. Only rows in the latest list are remembered. Thread-safe, but
+// meant for one list at a time.
+class ProductListMapper {
+    private Map<String, ProductSummary> previous = new HashMap<>();
+    private List<ProductSummary> lastList;
+
+    /**
+     * @return the list to publish, or null if it is the same (element by
+     * element, by identity) as the list returned by the previous call
+     */
+    synchronized List<ProductSummary> map(List<ProductSummary> rows) {
+        int size = rows != null ? rows.size() : 0;
+        Map<String, ProductSummary> next = new HashMap<>(size * 2);
+        List<ProductSummary> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ProductSummary row = rows.get(i);
+            ProductSummary reused = previous.get(row.getId());
+            ProductSummary product = row.equals(reused) ? reused : row;
+            next.put(row.getId(), product);
+            products.add(product);
+        }
+        previous = next;
+
+        if (sameElements(lastList, products)) return null;
+        lastList = products;
+        return products;
+    }
+
+    private static boolean sameElements(List<ProductSummary> a, List<ProductSummary> b) {
+        if (a == null || a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.productinfoapp.data.repository;
+
+import android.util.LruCache;
+import com.example.productinfoapp.data.model.Product;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory LRU tier above Room, holding domain Products indexed by both _id
+// and barcode. Entries are the objects the network returned, so they keep the
+// fields Room doesn't store (additives, scoreCategory, nutriScoreGrade).
+public class ProductMemoryCache {
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+
+    private static volatile ProductMemoryCache INSTANCE;
+
+    private final LruCache<String, Product> byId;
+    // barcode -> id, kept in step with byId evictions
+    private final Map<String, String> barcodeIndex = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ProductMemoryCache(int maxEntries) {
+        byId = new LruCache<String, Product>(maxEntries) {
+            @Override
+            protected void entryRemoved(boolean evicted, String id, Product oldValue, Product newValue) {
+                String barcode = oldValue.getBarcode();
+                if (barcode == null) return;
+                if (newValue != null && barcode.equals(newValue.getBarcode())) return;
+                synchronized (barcodeIndex) {
+                    if (id.equals(barcodeIndex.get(barcode))) {
+                        barcodeIndex.remove(barcode);
+                    }
+                }
+            }
+        };
+    }
+
+    public static ProductMemoryCache getInstance() {
+        if (INSTANCE == null) {
+            synchronized (ProductMemoryCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ProductMemoryCache(DEFAULT_MAX_ENTRIES);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public Product getById(String id) {
+        if (id == null) return null;
+        return record(byId.get(id));
+    }
+
+    public Product getByBarcode(String barcode) {
+        if (barcode == null) return null;
+        String id;
+        synchronized (barcodeIndex) {
+            id = barcodeIndex.get(barcode);
+        }
+        return record(id != null ? byId.get(id) : null);
+    }
+
+    // Lookup without touching the hit/miss counters, for internal consistency checks
+    public Product peek(String id) {
+        return id != null ? byId.get(id) : null;
+    }
+
+    public void put(Product product) {
+        if (product == null || product.getId() == null) return;
+        if (product.getBarcode() != null) {
+            synchronized (barcodeIndex) {
+                barcodeIndex.put(product.getBarcode(), product.getId());
+            }
+        }
+        byId.put(product.getId(), product);
+    }
+
+    // Only fills the cache, never replaces a richer network copy with a Room copy
+    public void putIfAbsent(Product product) {
+        if (product == null || product.getId() == null) return;
+        if (byId.get(product.getId()) == null) {
+            put(product);
+        }
+    }
+
+    public void remove(String id) {
+        if (id != null) byId.remove(id);
+    }
+
+    public void clear() {
+        byId.evictAll();
+    }
+
+    public int size() { return byId.size(); }
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : hits.get() / (double) total;
+    }
+
+    private Product record(Product product) {
+        if (product != null) hits.incrementAndGet();
+        else misses.incrementAndGet();
+        return product;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProductMemoryCache{size=%d, hits=%d, misses=%d, hitRate=%.2f}",
+                size(), getHitCount(), getMissCount(), getHitRate());
+    }
+}
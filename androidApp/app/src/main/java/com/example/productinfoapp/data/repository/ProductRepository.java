@@ -1,104 +1,549 @@
 package com.example.productinfoapp.data.repository;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Transformations;
 import com.example.productinfoapp.data.api.ApiService;
+import com.example.productinfoapp.data.api.ProductBatcher;
+import com.example.productinfoapp.data.api.ProductLookup;
 import com.example.productinfoapp.data.api.RetrofitClient;
 import com.example.productinfoapp.data.local.AppDatabase;
+import com.example.productinfoapp.data.local.BarcodeIndex;
 import com.example.productinfoapp.data.local.ProductDao;
 import com.example.productinfoapp.data.local.ProductEntity;
+import com.example.productinfoapp.data.local.ScanHistoryDao;
 import com.example.productinfoapp.data.model.Product;
-import com.example.productinfoapp.data.model.ProductListResponse;
+import com.example.productinfoapp.data.model.ProductSummary;
+import com.example.productinfoapp.data.model.ProductSummaryListResponse;
+import com.example.productinfoapp.util.AppExecutors;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 public class ProductRepository {
     private static final String TAG = "ProductRepository";
+    public static final int PAGE_SIZE = 20;
+    // Local pages observed and held at once; the rest keep only their id range
+    private static final int MAX_LIVE_PAGES = 5;
+    // Move the window (or download the next page) this many rows before its edge
+    private static final int PREFETCH_DISTANCE = 10;
+    public static final long BARCODE_INDEX_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
     private ProductDao productDao;
+    private final ScanHistoryDao historyDao;
     private ApiService apiService;
-    private LiveData<List<Product>> allProducts;
+    private ProductLookup productLookup;
+    private final ProductBatcher productBatcher;
+    private final AppExecutors executors;
+    private final CachePolicy detailPolicy = CachePolicy.forProductDetail();
+    private final ProductMemoryCache memoryCache = ProductMemoryCache.getInstance();
+    private final BarcodeIndex barcodeIndex;
+    private final ProductSyncEngine syncEngine;
+    private final LocalProductSearch localSearch;
+    private final MediatorLiveData<List<ProductSummary>> allProducts = new MediatorLiveData<>();
+
+    // Local list pages in order, touched on the main thread only. Each page keeps
+    // the id range it covered when the next one was added; only the last is
+    // bounded by PAGE_SIZE, so no query grows with the number of pages. Only
+    // pages in [windowStart, windowEnd) are observed and published; the window
+    // follows scrolling, so memory and mapping stay flat however far it goes.
+    private final List<ListPage> listPages = new ArrayList<>();
+    private int windowStart = 0;
+    private int windowEnd = 0;
+    // One local page per downloaded page, raised once that page is stored
+    private final MutableLiveData<Integer> requestedPages = new MutableLiveData<>(1);
+
+    // Paging state: next page key comes from the last response's offset/limit/hasMore
+    private int nextOffset = 0;
+    private boolean hasMore = true;
+    private boolean isLoadingPage = false;
+    // Bumped by refreshProducts; responses and writes of older generations are dropped
+    private int pageGeneration = 0;
+    private Call<ProductSummaryListResponse> pageCall;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     public ProductRepository(Application application) {
+        this(application, AppExecutors.getInstance());
+    }
+
+    public ProductRepository(Application application, AppExecutors executors) {
+        this.executors = executors;
         AppDatabase db = AppDatabase.getInstance(application);
         productDao = db.productDao();
+        barcodeIndex = BarcodeIndex.getInstance(application);
+        syncEngine = ProductSyncEngine.getInstance(application);
+        historyDao = db.scanHistoryDao();
+        localSearch = new LocalProductSearch(productDao, historyDao);
         apiService = RetrofitClient.getApiService();
-        
-        // Map from Entity to Domain Model
-        allProducts = Transformations.map(productDao.getAllProducts(), entities -> {
-            List<Product> products = new ArrayList<>();
-            if (entities != null) {
-                for (ProductEntity entity : entities) {
-                    products.add(entity.toProduct());
-                }
+        productLookup = ProductLookup.getInstance();
+        productBatcher = ProductBatcher.getInstance();
+
+        // Summary rows only, for the pages in the window. One mediator for all
+        // pages, so an unchanged page never re-publishes the list.
+        allProducts.addSource(requestedPages, count -> extendPages());
+    }
+
+    private static final class ListPage {
+        // Exclusive upper bound, null for the first page
+        final String beforeId;
+        // Inclusive lower bound once the next page exists, null while this is the last page
+        String throughId;
+        // Set only while the page is in the window
+        LiveData<List<ProductSummary>> source;
+        MutableLiveData<List<ProductSummary>> mapped;
+        ProductListMapper mapper;
+        List<ProductSummary> rows = Collections.emptyList();
+        boolean loaded;
+
+        ListPage(String beforeId) {
+            this.beforeId = beforeId;
+        }
+    }
+
+    // Adds local pages until there are as many as requested. The next page is
+    // keyed on the last row of the one before, so that one must have rows first;
+    // it is extended again when they arrive, which for a page outside the window
+    // is once the window gets back to it.
+    private void extendPages() {
+        Integer requested = requestedPages.getValue();
+        while (requested != null && listPages.size() < requested) {
+            if (listPages.isEmpty()) {
+                ListPage first = new ListPage(null);
+                listPages.add(first);
+                attach(first);
+                windowEnd = 1;
+                continue;
             }
-            Log.d(TAG, "Database returned " + products.size() + " products");
-            return products;
+            ListPage last = listPages.get(listPages.size() - 1);
+            if (last.rows.isEmpty()) return;
+            // Freeze the current last page to its range, so rows added inside it
+            // later grow that page instead of slipping between pages
+            last.throughId = last.rows.get(last.rows.size() - 1).getId();
+            observeRows(last);
+            ListPage next = new ListPage(last.throughId);
+            listPages.add(next);
+            if (windowEnd == listPages.size() - 1) slideForward();
+        }
+    }
+
+    // Moves the window with the visible catalog rows (positions in the published
+    // list), and downloads the next page once the end of the catalog is near
+    public void onCatalogScrolled(int firstVisible, int lastVisible) {
+        int published = 0;
+        for (int i = windowStart; i < windowEnd; i++) {
+            ListPage page = listPages.get(i);
+            if (!page.loaded) return; // The last move has not landed yet
+            published += page.rows.size();
+        }
+        if (firstVisible < PREFETCH_DISTANCE && windowStart > 0) {
+            attach(listPages.get(--windowStart));
+            if (windowEnd - windowStart > MAX_LIVE_PAGES) detach(listPages.get(--windowEnd));
+        } else if (lastVisible + PREFETCH_DISTANCE >= published) {
+            if (windowEnd < listPages.size()) {
+                slideForward();
+            } else {
+                loadNextPage();
+            }
+        }
+    }
+
+    private void slideForward() {
+        attach(listPages.get(windowEnd++));
+        if (windowEnd - windowStart > MAX_LIVE_PAGES) detach(listPages.get(windowStart++));
+    }
+
+    // Starts observing a page. Its rows are mapped off the main thread, this
+    // page's alone, and the window is republished only when they changed.
+    private void attach(ListPage page) {
+        ProductListMapper mapper = new ProductListMapper();
+        MutableLiveData<List<ProductSummary>> mapped = new MutableLiveData<>();
+        page.mapper = mapper;
+        page.mapped = mapped;
+        allProducts.addSource(mapped, rows -> {
+            page.rows = rows;
+            page.loaded = true;
+            publishWindow();
+            extendPages();
         });
+        observeRows(page);
+    }
+
+    // (Re)queries a page for its current range, keeping its mapper so unchanged
+    // rows keep their identity
+    private void observeRows(ListPage page) {
+        if (page.source != null) allProducts.removeSource(page.source);
+        page.source = page.throughId == null
+                ? (page.beforeId == null
+                        ? productDao.getFirstListedPage(PAGE_SIZE)
+                        : productDao.getListedPageBefore(page.beforeId, PAGE_SIZE))
+                : (page.beforeId == null
+                        ? productDao.getListedFrom(page.throughId)
+                        : productDao.getListedBetween(page.throughId, page.beforeId));
+        ProductListMapper mapper = page.mapper;
+        MutableLiveData<List<ProductSummary>> mapped = page.mapped;
+        // Latest rows waiting to be mapped; older ones are skipped if mapping falls behind
+        AtomicReference<List<ProductSummary>> pendingRows = new AtomicReference<>();
+        allProducts.addSource(page.source, rows -> {
+            pendingRows.set(rows != null ? rows : Collections.emptyList());
+            executors.compute().execute(() -> {
+                synchronized (mapper) {
+                    List<ProductSummary> latest = pendingRows.getAndSet(null);
+                    if (latest == null) return; // A later task already mapped newer rows
+                    List<ProductSummary> products = mapper.map(latest);
+                    if (products != null) mapped.postValue(products);
+                }
+            });
+        });
+    }
+
+    // Drops a page's sources and rows; only its id range is kept
+    private void detach(ListPage page) {
+        if (page.source != null) allProducts.removeSource(page.source);
+        if (page.mapped != null) allProducts.removeSource(page.mapped);
+        page.source = null;
+        page.mapped = null;
+        page.mapper = null;
+        page.rows = Collections.emptyList();
+        page.loaded = false;
     }
 
-    public LiveData<List<Product>> getAllProducts() {
-        refreshProducts(); // Trigger network refresh
+    private void publishWindow() {
+        List<ProductSummary> all = new ArrayList<>();
+        for (int i = windowStart; i < windowEnd; i++) {
+            all.addAll(listPages.get(i).rows);
+        }
+        Log.d(TAG, "Publishing " + all.size() + " products from pages " + windowStart + "-" + windowEnd);
+        allProducts.setValue(all);
+    }
+
+    public LiveData<List<ProductSummary>> getAllProducts() {
+        if (nextOffset == 0) {
+            loadNextPage(); // First page only, later pages are driven by scrolling
+        }
         return allProducts;
     }
-    
+
     public LiveData<Product> getProductById(String id) {
-        // Here we can fetch detail from API to get more info, 
-        // updating the local DB mostly for list. 
-        // For detail, we can observe DB if list has enough info, 
-        // or fetch fresh. I will observe DB.
-        
-        refreshProductDetail(id);
-        
-        return Transformations.map(productDao.getProductById(id), entity -> {
-            if (entity != null) return entity.toProduct();
-            return null;
+        MediatorLiveData<Product> result = new MediatorLiveData<>();
+
+        // Memory tier first, so a repeat view renders without waiting on Room
+        Product inMemory = memoryCache.getById(id);
+        if (inMemory != null) {
+            result.setValue(inMemory);
+        }
+
+        // The DB is the source of truth for detail. The cache policy decides
+        // whether the cached row is good enough or needs a network refresh.
+        executors.diskIO().execute(() -> {
+            ProductEntity cached = productDao.getProductByIdSync(id);
+            CachePolicy.Decision decision = detailPolicy.evaluate(
+                    cached != null, cached != null ? cached.fetchedAt : 0);
+            Log.d(TAG, "Detail cache " + decision + " for " + id);
+            if (decision != CachePolicy.Decision.HIT) {
+                refreshProductDetail(id);
+            }
         });
+
+        result.addSource(productDao.getProductById(id), entity -> {
+            if (entity == null) {
+                if (result.getValue() == null) result.setValue(null);
+                return;
+            }
+            // Keep the network copy (it has additives etc.) while it matches the row
+            Product cached = memoryCache.peek(id);
+            if (cached != null && new ProductEntity(cached).contentHash == entity.contentHash) {
+                if (result.getValue() != cached) result.setValue(cached);
+                return;
+            }
+            Product product = entity.toProduct();
+            // A summary-only row (contentHash 0) is shown until the refresh lands, not cached
+            if (entity.contentHash != 0) memoryCache.putIfAbsent(product);
+            result.setValue(product);
+        });
+        return result;
     }
 
+    // Ranked search over the on-device FTS index, works offline
+    public LiveData<List<ProductSummary>> searchLocal(String query) {
+        MutableLiveData<List<ProductSummary>> results = new MutableLiveData<>();
+        executors.compute().execute(() -> results.postValue(localSearch.search(query)));
+        return results;
+    }
+
+    // Stores remote search results so later searches can be answered locally
+    public void cacheSummaries(List<ProductSummary> summaries) {
+        if (summaries == null || summaries.isEmpty()) return;
+        long cachedAt = System.currentTimeMillis();
+        executors.diskIO().execute(() -> {
+            if (productDao.upsertSummaries(summaries, 0) > 0) syncEngine.noteCached(cachedAt);
+        });
+    }
+
+    // Stores full products, e.g. from a batch refresh
+    public void cacheProducts(List<Product> products) {
+        if (products == null || products.isEmpty()) return;
+        executors.diskIO().execute(() -> {
+            List<ProductEntity> entities = new ArrayList<>(products.size());
+            for (Product p : products) {
+                entities.add(new ProductEntity(p));
+            }
+            productDao.upsertAll(entities, staleBefore());
+            historyDao.backfillNutrition(products);
+        });
+    }
+
+    // Memory-only lookup, safe to call from the main thread
+    public Product getCachedByBarcode(String barcode) {
+        return memoryCache.getByBarcode(barcode);
+    }
+
+    // Room fallback for when the network lookup failed; posts null if the
+    // barcode was never stored
+    public LiveData<Product> findStoredByBarcode(String barcode) {
+        MutableLiveData<Product> result = new MutableLiveData<>();
+        executors.diskIO().execute(() -> {
+            List<ProductEntity> rows = productDao.getProductsByBarcodes(Collections.singletonList(barcode));
+            result.postValue(rows.isEmpty() ? null : rows.get(0).toProduct());
+        });
+        return result;
+    }
+
+    // Write-through for products fetched outside the repository (e.g. by the scanner).
+    // Scans recorded before the full product was known pick up its nutrition here.
+    public void cacheProduct(Product product) {
+        if (product == null || product.getId() == null) return;
+        memoryCache.put(product);
+        executors.diskIO().execute(() -> {
+            productDao.upsert(new ProductEntity(product), staleBefore());
+            historyDao.backfillNutrition(Collections.singletonList(product));
+        });
+    }
+
+    // Refreshes the cached products for these barcodes that are missing or older
+    // than the detail TTL, in as few batch requests as the batcher needs
+    public void refreshByBarcodes(List<String> barcodes) {
+        if (barcodes == null || barcodes.isEmpty()) return;
+        executors.diskIO().execute(() -> {
+            Set<String> stale = new HashSet<>(barcodes);
+            long staleBefore = staleBefore();
+            for (int start = 0; start < barcodes.size(); start += ProductDao.MAX_QUERY_ARGS) {
+                List<String> chunk = barcodes.subList(start, Math.min(barcodes.size(), start + ProductDao.MAX_QUERY_ARGS));
+                for (ProductEntity entity : productDao.getProductsByBarcodes(chunk)) {
+                    if (entity.fetchedAt >= staleBefore) stale.remove(entity.barcode);
+                }
+            }
+            Log.d(TAG, "Refreshing " + stale.size() + " of " + barcodes.size() + " products");
+            if (!stale.isEmpty()) fetchBatch(new ArrayList<>(stale));
+        });
+    }
+
+    private void fetchBatch(List<String> barcodes) {
+        List<Product> fetched = new ArrayList<>();
+        int[] remaining = {barcodes.size()};
+        ProductBatcher.ProductCallback callback = new ProductBatcher.ProductCallback() {
+            @Override
+            public void onResult(Product product) {
+                if (product != null) fetched.add(product);
+                done();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                Log.e(TAG, "Batch refresh failed", t);
+                done();
+            }
+
+            // Callbacks arrive on the main thread; write everything in one upsert at the end
+            private void done() {
+                if (--remaining[0] > 0) return;
+                for (Product product : fetched) {
+                    memoryCache.put(product);
+                }
+                cacheProducts(fetched);
+            }
+        };
+        for (String barcode : barcodes) {
+            productBatcher.getByBarcode(barcode, callback);
+        }
+    }
+
+    // Offline lookup in the memory-mapped snapshot; returns a summary Product or null
+    public Product findInBarcodeIndex(String barcode) {
+        return barcodeIndex.lookup(barcode);
+    }
+
+    // Stores a summary (e.g. from the barcode index) only if the row is missing.
+    // It goes in as a summary row (fetchedAt and contentHash 0), so the detail
+    // screen revalidates it and never takes it for a full product.
+    public void cacheSummary(Product summary) {
+        if (summary == null || summary.getId() == null) return;
+        executors.diskIO().execute(() -> {
+            if (productDao.getProductByIdSync(summary.getId()) == null) {
+                productDao.insert(new ProductEntity(ProductSummary.of(summary)));
+                // The snapshot was current when it was downloaded
+                syncEngine.noteCached(barcodeIndex.getFile().lastModified());
+            }
+        });
+    }
+
+    // Pulls only products changed or deleted since the last sync into Room
+    public void syncChanges() {
+        syncEngine.syncAsync();
+    }
+
+    public void refreshBarcodeIndexIfStale() {
+        File file = barcodeIndex.getFile();
+        if (file.exists() && System.currentTimeMillis() - file.lastModified() < BARCODE_INDEX_MAX_AGE_MILLIS) {
+            return;
+        }
+        apiService.getBarcodeIndex().enqueue(new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.e(TAG, "Barcode index download failed: " + response.code());
+                    return;
+                }
+                ResponseBody body = response.body();
+                executors.networkIO().execute(() -> saveBarcodeIndex(body, file));
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                Log.e(TAG, "Error downloading barcode index", t);
+            }
+        });
+    }
+
+    private void saveBarcodeIndex(ResponseBody body, File target) {
+        // Write next to the live file and swap, so the mapped snapshot is never half-written
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        try (InputStream in = body.byteStream(); OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving barcode index", e);
+            temp.delete();
+            return;
+        } finally {
+            body.close();
+        }
+        if (temp.renameTo(target)) {
+            barcodeIndex.reload();
+        } else {
+            Log.e(TAG, "Could not replace barcode index file");
+            temp.delete();
+        }
+    }
+
+    public CachePolicy getDetailCachePolicy() {
+        return detailPolicy;
+    }
+
+    public boolean hasMorePages() {
+        return hasMore;
+    }
+
+    // Drops the paging cursor and downloads the first page again
     public void refreshProducts() {
-        Log.d(TAG, "Starting API call to fetch products...");
-        // Fetch first page (20 products)
-        apiService.getProducts(20, 0).enqueue(new Callback<ProductListResponse>() {
+        pageGeneration++;
+        if (pageCall != null) pageCall.cancel();
+        pageCall = null;
+        isLoadingPage = false;
+        nextOffset = 0;
+        hasMore = true;
+        for (ListPage page : listPages) {
+            detach(page);
+        }
+        listPages.clear();
+        windowStart = 0;
+        windowEnd = 0;
+        requestedPages.setValue(1);
+        loadNextPage();
+    }
+
+    public void loadNextPage() {
+        if (isLoadingPage || !hasMore) return;
+        isLoadingPage = true;
+
+        final int offset = nextOffset;
+        final int generation = pageGeneration;
+        Log.d(TAG, "Fetching products page at offset " + offset);
+        pageCall = apiService.getProductSummaries(PAGE_SIZE, offset);
+        pageCall.enqueue(new Callback<ProductSummaryListResponse>() {
             @Override
-            public void onResponse(Call<ProductListResponse> call, Response<ProductListResponse> response) {
+            public void onResponse(Call<ProductSummaryListResponse> call, Response<ProductSummaryListResponse> response) {
+                if (generation != pageGeneration) return; // Refreshed since
+                pageCall = null;
+                isLoadingPage = false;
                 Log.d(TAG, "API Response code: " + response.code());
                 if (response.isSuccessful() && response.body() != null) {
-                    List<Product> products = response.body().getProducts();
-                    Log.d(TAG, "API returned " + products.size() + " products (total: " + response.body().getTotal() + ")");
-                    new Thread(() -> {
-                        List<ProductEntity> entities = new ArrayList<>();
-                        for (Product p : products) {
-                            entities.add(new ProductEntity(p));
-                        }
-                        productDao.insertAll(entities);
-                        Log.d(TAG, "Inserted " + entities.size() + " products to database");
-                    }).start();
+                    ProductSummaryListResponse page = response.body();
+                    List<ProductSummary> products = page.getProducts() != null
+                            ? page.getProducts() : new ArrayList<>();
+                    Log.d(TAG, "API returned " + products.size() + " products (total: " + page.getTotal() + ")");
+
+                    // The server clamps limit, so advance by what was actually returned
+                    nextOffset = page.getOffset() + products.size();
+                    hasMore = page.hasMore() && !products.isEmpty();
+
+                    if (products.isEmpty()) return;
+                    int pages = Math.max(1, (nextOffset + PAGE_SIZE - 1) / PAGE_SIZE);
+                    executors.diskIO().execute(() -> {
+                        // One transaction per page, and none at all if nothing changed
+                        long listedAt = System.currentTimeMillis();
+                        int written = productDao.upsertSummaries(products, listedAt);
+                        if (written > 0) syncEngine.noteCached(listedAt);
+                        Log.d(TAG, "Wrote " + written + " of " + products.size() + " products to database");
+                        mainHandler.post(() -> {
+                            if (generation == pageGeneration) requestedPages.setValue(pages);
+                        });
+                    });
                 } else {
                     Log.e(TAG, "API response not successful or body is null");
                 }
             }
 
             @Override
-            public void onFailure(Call<ProductListResponse> call, Throwable t) {
+            public void onFailure(Call<ProductSummaryListResponse> call, Throwable t) {
+                if (generation != pageGeneration) return; // Cancelled by a refresh
+                pageCall = null;
+                isLoadingPage = false;
                 Log.e(TAG, "Error fetching products: " + t.getMessage(), t);
             }
         });
     }
-    
+
+    // Unchanged rows older than this get their fetchedAt refreshed on upsert
+    private long staleBefore() {
+        return System.currentTimeMillis() - detailPolicy.getTtlMillis();
+    }
+
     private void refreshProductDetail(String id) {
-         apiService.getProductById(id).enqueue(new Callback<Product>() {
+         productLookup.getProductById(id, new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                     new Thread(() -> {
-                        productDao.insert(new ProductEntity(response.body()));
-                    }).start();
+                    cacheProduct(response.body());
                 }
             }
 
@@ -0,0 +1,188 @@
+package com.example.productinfoapp.data.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.example.productinfoapp.data.api.ApiService;
+import com.example.productinfoapp.data.api.RetrofitClient;
+import com.example.productinfoapp.data.local.AppDatabase;
+import com.example.productinfoapp.data.local.ProductDao;
+import com.example.productinfoapp.data.local.ProductEntity;
+import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductChangesResponse;
+import com.example.productinfoapp.util.AppExecutors;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import retrofit2.Response;
+
+// Keeps the products table current by pulling only what changed on the backend
+// since the last sync (GET /products/changes), instead of re-downloading products.
+// The high-water mark is a (time, id) cursor stored in SharedPreferences and only
+// advanced after the page it came from has been committed to Room.
+public class ProductSyncEngine {
+    private static final String TAG = "ProductSyncEngine";
+    private static final String PREFS = "product_sync";
+    private static final String KEY_SINCE = "since";
+    private static final String KEY_AFTER_ID = "after_id";
+
+    // One request and one Room transaction per page
+    public static final int PAGE_SIZE = 500;
+    // Margin for clock skew when seeding the cursor from local fetch times
+    private static final long SEED_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static volatile ProductSyncEngine INSTANCE;
+
+    private final AppDatabase db;
+    private final ProductDao productDao;
+    private final ApiService apiService;
+    private final SharedPreferences prefs;
+    private final AppExecutors executors;
+    private final ProductMemoryCache memoryCache = ProductMemoryCache.getInstance();
+    private final CachePolicy detailPolicy = CachePolicy.forProductDetail();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile long lastSyncDurationMillis;
+    private volatile int lastSyncChangeCount;
+
+    ProductSyncEngine(Context context, ApiService apiService, AppExecutors executors) {
+        this(context, AppDatabase.getInstance(context), apiService, executors);
+    }
+
+    ProductSyncEngine(Context context, AppDatabase db, ApiService apiService, AppExecutors executors) {
+        this.db = db;
+        this.productDao = db.productDao();
+        this.apiService = apiService;
+        this.executors = executors;
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    public static ProductSyncEngine getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ProductSyncEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ProductSyncEngine(context.getApplicationContext(),
+                            RetrofitClient.getApiService(), AppExecutors.getInstance());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // Runs a sync on the network executor unless one is already in progress
+    public void syncAsync() {
+        if (!running.compareAndSet(false, true)) return;
+        executors.networkIO().execute(() -> {
+            try {
+                sync();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    // Blocking; call off the main thread. Returns the number of changes applied.
+    int sync() {
+        long started = System.nanoTime();
+        long since = prefs.getLong(KEY_SINCE, -1);
+        String afterId = prefs.getString(KEY_AFTER_ID, null);
+
+        if (since < 0) {
+            // First sync: everything cached was current when fetched, so start there
+            long oldest = productDao.getOldestCachedAt();
+            if (oldest == 0) {
+                Log.d(TAG, "Nothing cached yet, skipping sync");
+                return 0;
+            }
+            since = Math.max(0, oldest - SEED_MARGIN_MILLIS);
+            afterId = null;
+        }
+
+        int applied = 0;
+        boolean hasMore = true;
+        try {
+            while (hasMore) {
+                Response<ProductChangesResponse> response =
+                        apiService.getChanges(since, afterId, PAGE_SIZE).execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.e(TAG, "Sync request failed: " + response.code());
+                    break;
+                }
+                ProductChangesResponse page = response.body();
+                // Writes go through the single disk-io thread like every other DB write
+                applied += executors.diskIO().submit(() -> applyPage(page)).get();
+
+                since = page.getNextSince();
+                afterId = page.getNextAfterId();
+                prefs.edit()
+                        .putLong(KEY_SINCE, since)
+                        .putString(KEY_AFTER_ID, afterId)
+                        .apply();
+                hasMore = page.hasMore();
+            }
+        } catch (IOException | ExecutionException e) {
+            Log.e(TAG, "Sync failed, will resume from the last committed page", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        lastSyncChangeCount = applied;
+        lastSyncDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        Log.d(TAG, "Applied " + applied + " changes in " + lastSyncDurationMillis + "ms");
+        return applied;
+    }
+
+    private int applyPage(ProductChangesResponse page) {
+        List<Product> products = page.getProducts() != null ? page.getProducts() : new ArrayList<>();
+        List<String> deleted = page.getDeleted() != null ? page.getDeleted() : new ArrayList<>();
+        if (products.isEmpty() && deleted.isEmpty()) return 0;
+
+        List<ProductEntity> entities = new ArrayList<>(products.size());
+        for (Product product : products) {
+            entities.add(new ProductEntity(product));
+        }
+        long staleBefore = System.currentTimeMillis() - detailPolicy.getTtlMillis();
+
+        int[] written = new int[1];
+        db.runInTransaction(() -> {
+            // Only products this device already holds; the feed covers the whole
+            // catalogue, and deletes of ids never cached simply match no rows
+            written[0] = productDao.updateStored(entities, staleBefore);
+            for (int start = 0; start < deleted.size(); start += ProductDao.MAX_QUERY_ARGS) {
+                written[0] += productDao.deleteByIds(
+                        deleted.subList(start, Math.min(deleted.size(), start + ProductDao.MAX_QUERY_ARGS)));
+            }
+            db.scanHistoryDao().backfillNutrition(products);
+        });
+
+        // Keep the memory tier coherent with what was just written
+        for (Product product : products) {
+            if (memoryCache.peek(product.getId()) != null) memoryCache.put(product);
+        }
+        for (String id : deleted) {
+            memoryCache.remove(id);
+        }
+        return written[0];
+    }
+
+    // Called when rows are cached that the first sync could not date from the
+    // table (summaries carry no fetchedAt). Seeds the cursor if no sync has
+    // committed one yet, so changes made after cachedAt are not skipped.
+    public void noteCached(long cachedAt) {
+        if (prefs.getLong(KEY_SINCE, -1) >= 0) return;
+        prefs.edit()
+                .putLong(KEY_SINCE, Math.max(0, cachedAt - SEED_MARGIN_MILLIS))
+                .remove(KEY_AFTER_ID)
+                .apply();
+    }
+
+    public long getLastSyncDurationMillis() { return lastSyncDurationMillis; }
+    public int getLastSyncChangeCount() { return lastSyncChangeCount; }
+
+    public void reset() {
+        prefs.edit().clear().apply();
+    }
+}
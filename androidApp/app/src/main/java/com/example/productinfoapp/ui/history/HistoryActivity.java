@@ -3,25 +3,63 @@ package com.example.productinfoapp.ui.history;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
+import android.widget.AdapterView;
+import android.widget.RadioGroup;
+import android.widget.Spinner;
 import android.widget.TextView;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.productinfoapp.R;
 import com.example.productinfoapp.data.local.AppDatabase;
+import com.example.productinfoapp.data.local.HistoryFilter;
+import com.example.productinfoapp.data.local.NutritionDailyEntity;
+import com.example.productinfoapp.data.local.NutritionDao;
+import com.example.productinfoapp.data.local.NutritionSummary;
 import com.example.productinfoapp.data.local.ScanHistoryDao;
 import com.example.productinfoapp.data.local.ScanHistoryEntity;
+import com.example.productinfoapp.data.repository.ProductRepository;
 import com.example.productinfoapp.ui.scanner.BarcodeScannerActivity;
+import com.example.productinfoapp.util.AppExecutors;
 import com.google.android.material.tabs.TabLayout;
-import java.util.concurrent.Executors;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
 
 public class HistoryActivity extends AppCompatActivity {
+    // Load the next page when the last visible row is this close to the end
+    private static final int PREFETCH_DISTANCE = 15;
+    private static final int TAB_NUTRITION = 2;
+    // Filter spinner positions to values; see the history_* arrays
+    private static final int[][] SCORE_RANGES = {{0, 100}, {70, 100}, {40, 69}, {0, 39}};
+    private static final int[] DATE_WINDOW_DAYS = {0, 1, 7, 30};
+
     private RecyclerView recyclerView;
     private TextView emptyText;
     private TabLayout tabLayout;
+    private View historyFilters;
+    private Spinner gradeFilter;
+    private Spinner scoreFilter;
+    private Spinner dateFilter;
+    private View nutritionPanel;
+    private TextView nutritionScans;
+    private TextView nutritionTotals;
+    private TextView nutritionAverages;
+    private TextView nutritionGrades;
     private HistoryAdapter adapter;
     private ScanHistoryDao historyDao;
-    private boolean showingFavorites = false;
+    private AppExecutors executors;
+    // Changing the filter swaps the observed pages (see observeHistory)
+    private final MutableLiveData<HistoryFilter> filter = new MutableLiveData<>(HistoryFilter.all());
+    private HistoryPages historyPages;
+    private boolean showingNutrition = false;
+    private boolean favoritesRefreshed = false;
+    private ProductRepository productRepository;
+    // Dashboard window in days, ending today
+    private final MutableLiveData<Integer> nutritionDays = new MutableLiveData<>(1);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -31,19 +69,43 @@ public class HistoryActivity extends AppCompatActivity {
         recyclerView = findViewById(R.id.historyRecyclerView);
         emptyText = findViewById(R.id.emptyText);
         tabLayout = findViewById(R.id.tabLayout);
+        historyFilters = findViewById(R.id.historyFilters);
+        gradeFilter = findViewById(R.id.gradeFilter);
+        scoreFilter = findViewById(R.id.scoreFilter);
+        dateFilter = findViewById(R.id.dateFilter);
+        nutritionPanel = findViewById(R.id.nutritionPanel);
+        nutritionScans = findViewById(R.id.nutritionScans);
+        nutritionTotals = findViewById(R.id.nutritionTotals);
+        nutritionAverages = findViewById(R.id.nutritionAverages);
+        nutritionGrades = findViewById(R.id.nutritionGrades);
 
         historyDao = AppDatabase.getInstance(this).scanHistoryDao();
+        executors = AppExecutors.getInstance();
+        productRepository = new ProductRepository(getApplication());
 
         setupRecyclerView();
         setupTabs();
+        setupFilters();
         observeHistory();
+        observeNutrition();
     }
 
     private void setupRecyclerView() {
         adapter = new HistoryAdapter();
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
 
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || historyPages == null || !historyPages.hasMore()) return;
+                if (layoutManager.findLastVisibleItemPosition() + PREFETCH_DISTANCE >= adapter.getItemCount()) {
+                    historyPages.loadMore();
+                }
+            }
+        });
+
         adapter.setOnItemClickListener(item -> {
             // Open scanner with barcode to re-fetch product
             Intent intent = new Intent(this, BarcodeScannerActivity.class);
@@ -52,7 +114,7 @@ public class HistoryActivity extends AppCompatActivity {
         });
 
         adapter.setOnFavoriteToggleListener((item, isFavorite) -> {
-            Executors.newSingleThreadExecutor().execute(() -> {
+            executors.diskIO().execute(() -> {
                 historyDao.setFavorite(item.id, isFavorite);
             });
         });
@@ -62,8 +124,19 @@ public class HistoryActivity extends AppCompatActivity {
         tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
             public void onTabSelected(TabLayout.Tab tab) {
-                showingFavorites = tab.getPosition() == 1;
-                observeHistory();
+                showingNutrition = tab.getPosition() == TAB_NUTRITION;
+                if (showingNutrition) {
+                    recyclerView.setVisibility(View.GONE);
+                    emptyText.setVisibility(View.GONE);
+                    historyFilters.setVisibility(View.GONE);
+                    nutritionPanel.setVisibility(View.VISIBLE);
+                    return;
+                }
+                nutritionPanel.setVisibility(View.GONE);
+                historyFilters.setVisibility(View.VISIBLE);
+                boolean favorites = tab.getPosition() == 1;
+                if (favorites) refreshFavoritesOnce();
+                setFilter(filter.getValue().withFavoritesOnly(favorites));
             }
 
             @Override
@@ -74,18 +147,113 @@ public class HistoryActivity extends AppCompatActivity {
         });
     }
 
-    private void observeHistory() {
-        if (showingFavorites) {
-            emptyText.setText("No favorites yet.\nTap the star to add favorites!");
-            historyDao.getFavorites().observe(this, this::updateList);
-        } else {
-            emptyText.setText("No scan history yet.\nScan a product to get started!");
-            historyDao.getAllHistory().observe(this, this::updateList);
+    // Grade, score and date spinners narrow whichever tab is showing
+    private void setupFilters() {
+        AdapterView.OnItemSelectedListener onChange = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                applyFilters();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        };
+        gradeFilter.setOnItemSelectedListener(onChange);
+        scoreFilter.setOnItemSelectedListener(onChange);
+        dateFilter.setOnItemSelectedListener(onChange);
+    }
+
+    private void applyFilters() {
+        String grade = gradeFilter.getSelectedItemPosition() > 0
+                ? gradeFilter.getSelectedItem().toString() : null;
+        int[] scores = SCORE_RANGES[scoreFilter.getSelectedItemPosition()];
+        int days = DATE_WINDOW_DAYS[dateFilter.getSelectedItemPosition()];
+        long fromMillis = 0;
+        if (days > 0) {
+            // Whole local days, today included
+            Calendar start = Calendar.getInstance();
+            start.set(Calendar.HOUR_OF_DAY, 0);
+            start.set(Calendar.MINUTE, 0);
+            start.set(Calendar.SECOND, 0);
+            start.set(Calendar.MILLISECOND, 0);
+            start.add(Calendar.DAY_OF_YEAR, 1 - days);
+            fromMillis = start.getTimeInMillis();
         }
+        setFilter(filter.getValue()
+                .withGrade(grade)
+                .withScoreRange(scores[0], scores[1])
+                .withDateWindow(fromMillis, Long.MAX_VALUE));
+    }
+
+    // A new filter replaces the observed pages, so only set one that differs
+    private void setFilter(HistoryFilter next) {
+        if (!next.equals(filter.getValue())) filter.setValue(next);
+    }
+
+    // Observed once; only the current filter's pages are live
+    private void observeHistory() {
+        Transformations.switchMap(filter, current -> {
+            historyPages = new HistoryPages(historyDao, current);
+            return historyPages;
+        }).observe(this, this::updateList);
+    }
+
+    // Favorites are likely to be opened again, so bring their cached products up
+    // to date once per visit: all of them, not just the first page (batched, and
+    // only the stale ones)
+    private void refreshFavoritesOnce() {
+        if (favoritesRefreshed) return;
+        favoritesRefreshed = true;
+        executors.diskIO().execute(() ->
+                productRepository.refreshByBarcodes(historyDao.getFavoriteBarcodes()));
+    }
+
+    // Reads a handful of nutrition_daily rows, so it does not grow with the history
+    private void observeNutrition() {
+        RadioGroup window = findViewById(R.id.nutritionWindow);
+        window.setOnCheckedChangeListener((group, checkedId) -> {
+            if (checkedId == R.id.windowWeek) nutritionDays.setValue(7);
+            else if (checkedId == R.id.windowMonth) nutritionDays.setValue(30);
+            else nutritionDays.setValue(1);
+        });
+
+        NutritionDao nutritionDao = AppDatabase.getInstance(this).nutritionDao();
+        Transformations.switchMap(nutritionDays, days -> {
+            int today = NutritionDailyEntity.dayOf(System.currentTimeMillis());
+            return nutritionDao.getSummary(today - days + 1, today);
+        }).observe(this, this::showNutrition);
     }
 
-    private void updateList(java.util.List<ScanHistoryEntity> items) {
+    private void showNutrition(NutritionSummary summary) {
+        if (summary == null) summary = new NutritionSummary();
+        nutritionScans.setText(summary.scans + (summary.scans == 1 ? " scan" : " scans"));
+        nutritionTotals.setText(String.format(Locale.getDefault(),
+                "Total\nCalories: %.0f kcal\nSugar: %.1f g\nSalt: %.2f g\nSaturated fat: %.1f g",
+                summary.calories, summary.sugar, summary.salt, summary.saturatedFat));
+        nutritionAverages.setText(String.format(Locale.getDefault(),
+                "Average per product\nCalories: %.0f kcal\nSugar: %.1f g\nSalt: %.2f g\nSaturated fat: %.1f g",
+                summary.averageCalories(), summary.averageSugar(), summary.averageSalt(),
+                summary.averageSaturatedFat()));
+        nutritionGrades.setText(String.format(Locale.getDefault(),
+                "NutriScore  A: %d  B: %d  C: %d  D: %d  E: %d  ?: %d",
+                summary.gradeA, summary.gradeB, summary.gradeC, summary.gradeD, summary.gradeE,
+                summary.gradeUnknown));
+    }
+
+    private void updateList(List<ScanHistoryEntity> items) {
+        if (showingNutrition) {
+            if (items != null && !items.isEmpty()) adapter.setItems(items);
+            return;
+        }
         if (items == null || items.isEmpty()) {
+            HistoryFilter current = filter.getValue();
+            if (!current.withFavoritesOnly(false).equals(HistoryFilter.all())) {
+                emptyText.setText("No scans match these filters.");
+            } else if (current.favoritesOnly) {
+                emptyText.setText("No favorites yet.\nTap the star to add favorites!");
+            } else {
+                emptyText.setText("No scan history yet.\nScan a product to get started!");
+            }
             recyclerView.setVisibility(View.GONE);
             emptyText.setVisibility(View.VISIBLE);
         } else {
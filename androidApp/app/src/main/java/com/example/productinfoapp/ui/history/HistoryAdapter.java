@@ -11,16 +11,23 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.productinfoapp.R;
 import com.example.productinfoapp.data.local.ScanHistoryEntity;
-import java.util.ArrayList;
+import com.example.productinfoapp.util.FrameTimeMonitor;
 import java.util.List;
+import java.util.Objects;
+
+public class HistoryAdapter extends ListAdapter<ScanHistoryEntity, HistoryAdapter.ViewHolder> {
+    // Partial bind payload: only the favorite star changed
+    private static final Object PAYLOAD_FAVORITE = new Object();
+    private static final int REFRESH_FRAMES = 30;
 
-public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHolder> {
-    private List<ScanHistoryEntity> items = new ArrayList<>();
     private Context context;
+    private final FrameTimeMonitor frameMonitor = new FrameTimeMonitor("HistoryAdapter");
     private OnHistoryItemClickListener clickListener;
     private OnFavoriteToggleListener favoriteListener;
 
@@ -32,6 +39,16 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
         void onFavoriteToggle(ScanHistoryEntity item, boolean isFavorite);
     }
 
+    public HistoryAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
     public void setOnItemClickListener(OnHistoryItemClickListener listener) {
         this.clickListener = listener;
     }
@@ -48,9 +65,18 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
         return new ViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty()) { // PAYLOAD_FAVORITE is the only payload
+            bindFavorite(holder, getItem(position));
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        ScanHistoryEntity item = items.get(position);
+        ScanHistoryEntity item = getItem(position);
 
         holder.productName.setText(item.productName);
         holder.brandName.setText(item.brandName);
@@ -71,7 +97,11 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
         // Timestamp
         CharSequence relativeTime = DateUtils.getRelativeTimeSpanString(
                 item.scannedAt, System.currentTimeMillis(), DateUtils.MINUTE_IN_MILLIS);
-        holder.timestamp.setText(relativeTime);
+        if (item.scanCount > 1) {
+            holder.timestamp.setText(relativeTime + " · " + item.scanCount + " scans");
+        } else {
+            holder.timestamp.setText(relativeTime);
+        }
 
         // Image
         if (item.imageUrl != null && !item.imageUrl.isEmpty()) {
@@ -79,14 +109,7 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
         }
 
         // Favorite
-        holder.favoriteButton.setImageResource(
-                item.isFavorite ? android.R.drawable.btn_star_big_on : android.R.drawable.btn_star_big_off);
-        
-        holder.favoriteButton.setOnClickListener(v -> {
-            if (favoriteListener != null) {
-                favoriteListener.onFavoriteToggle(item, !item.isFavorite);
-            }
-        });
+        bindFavorite(holder, item);
 
         holder.itemView.setOnClickListener(v -> {
             if (clickListener != null) {
@@ -95,16 +118,49 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return items.size();
+    private void bindFavorite(ViewHolder holder, ScanHistoryEntity item) {
+        holder.favoriteButton.setImageResource(
+                item.isFavorite ? android.R.drawable.btn_star_big_on : android.R.drawable.btn_star_big_off);
+
+        holder.favoriteButton.setOnClickListener(v -> {
+            if (favoriteListener != null) {
+                favoriteListener.onFavoriteToggle(item, !item.isFavorite);
+            }
+        });
     }
 
     public void setItems(List<ScanHistoryEntity> items) {
-        this.items = items != null ? items : new ArrayList<>();
-        notifyDataSetChanged();
+        frameMonitor.measureNextFrames(REFRESH_FRAMES);
+        submitList(items);
     }
 
+    static final DiffUtil.ItemCallback<ScanHistoryEntity> DIFF_CALLBACK = new DiffUtil.ItemCallback<ScanHistoryEntity>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ScanHistoryEntity oldItem, @NonNull ScanHistoryEntity newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ScanHistoryEntity oldItem, @NonNull ScanHistoryEntity newItem) {
+            return sameExceptFavorite(oldItem, newItem) && oldItem.isFavorite == newItem.isFavorite;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull ScanHistoryEntity oldItem, @NonNull ScanHistoryEntity newItem) {
+            return sameExceptFavorite(oldItem, newItem) ? PAYLOAD_FAVORITE : null;
+        }
+
+        private boolean sameExceptFavorite(ScanHistoryEntity a, ScanHistoryEntity b) {
+            return Objects.equals(a.productName, b.productName)
+                    && Objects.equals(a.brandName, b.brandName)
+                    && Objects.equals(a.imageUrl, b.imageUrl)
+                    && Objects.equals(a.nutriScoreGrade, b.nutriScoreGrade)
+                    && a.healthScore == b.healthScore
+                    && a.scannedAt == b.scannedAt
+                    && a.scanCount == b.scanCount;
+        }
+    };
+
     private int getScoreColor(int score) {
         if (score >= 75) return Color.parseColor("#4CAF50");
         if (score >= 50) return Color.parseColor("#8BC34A");
@@ -0,0 +1,76 @@
+package com.example.productinfoapp.ui.history;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import com.example.productinfoapp.data.local.HistoryFilter;
+import com.example.productinfoapp.data.local.ScanHistoryDao;
+import com.example.productinfoapp.data.local.ScanHistoryEntity;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The history list for one filter, as keyset pages over (scannedAt, id) with one
+// Room source per page. Only the last page is bounded by PAGE_SIZE; earlier ones
+// keep the key range they had when the next page was added, so a rescanned row
+// moves from its page to the first one instead of falling between two.
+// Main thread only.
+class HistoryPages extends MediatorLiveData<List<ScanHistoryEntity>> {
+    static final int PAGE_SIZE = 50;
+    private static final int NO_LIMIT = -1;
+
+    private final ScanHistoryDao historyDao;
+    private final HistoryFilter filter;
+    private final List<Page> pages = new ArrayList<>();
+
+    private static final class Page {
+        // Exclusive upper key; the first page starts above every row
+        final long beforeAt;
+        final int beforeId;
+        LiveData<List<ScanHistoryEntity>> source;
+        List<ScanHistoryEntity> rows = Collections.emptyList();
+
+        Page(long beforeAt, int beforeId) {
+            this.beforeAt = beforeAt;
+            this.beforeId = beforeId;
+        }
+    }
+
+    HistoryPages(ScanHistoryDao historyDao, HistoryFilter filter) {
+        this.historyDao = historyDao;
+        this.filter = filter;
+        addPage(Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    // False while the last page is short: everything matching is already loaded
+    boolean hasMore() {
+        return pages.get(pages.size() - 1).rows.size() >= PAGE_SIZE;
+    }
+
+    void loadMore() {
+        Page last = pages.get(pages.size() - 1);
+        if (last.rows.size() < PAGE_SIZE) return;
+        ScanHistoryEntity oldest = last.rows.get(last.rows.size() - 1);
+        // Freeze the last page down to its oldest row, then continue below it
+        observe(last, oldest.scannedAt, oldest.id, NO_LIMIT);
+        addPage(oldest.scannedAt, oldest.id);
+    }
+
+    private void addPage(long beforeAt, int beforeId) {
+        Page page = new Page(beforeAt, beforeId);
+        pages.add(page);
+        observe(page, Long.MIN_VALUE, Integer.MIN_VALUE, PAGE_SIZE);
+    }
+
+    private void observe(Page page, long throughAt, int throughId, int limit) {
+        if (page.source != null) removeSource(page.source);
+        page.source = historyDao.getHistoryPage(filter, page.beforeAt, page.beforeId, throughAt, throughId, limit);
+        addSource(page.source, rows -> {
+            page.rows = rows != null ? rows : Collections.emptyList();
+            List<ScanHistoryEntity> all = new ArrayList<>();
+            for (Page p : pages) {
+                all.addAll(p.rows);
+            }
+            setValue(all);
+        });
+    }
+}
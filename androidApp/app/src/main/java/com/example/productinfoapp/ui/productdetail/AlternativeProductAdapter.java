@@ -10,16 +10,31 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.productinfoapp.R;
 import com.example.productinfoapp.data.model.Product;
-import java.util.ArrayList;
+import com.example.productinfoapp.util.FrameTimeMonitor;
 import java.util.List;
+import java.util.Objects;
+
+public class AlternativeProductAdapter extends ListAdapter<Product, AlternativeProductAdapter.ViewHolder> {
+    private static final int REFRESH_FRAMES = 30;
 
-public class AlternativeProductAdapter extends RecyclerView.Adapter<AlternativeProductAdapter.ViewHolder> {
-    private List<Product> alternatives = new ArrayList<>();
     private Context context;
+    private final FrameTimeMonitor frameMonitor = new FrameTimeMonitor("AlternativeProductAdapter");
+
+    public AlternativeProductAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getStableId();
+    }
 
     @NonNull
     @Override
@@ -31,7 +46,7 @@ public class AlternativeProductAdapter extends RecyclerView.Adapter<AlternativeP
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Product product = alternatives.get(position);
+        Product product = getItem(position);
         
         holder.name.setText(product.getName());
         
@@ -66,16 +81,28 @@ public class AlternativeProductAdapter extends RecyclerView.Adapter<AlternativeP
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return alternatives.size();
-    }
-
     public void setAlternatives(List<Product> alternatives) {
-        this.alternatives = alternatives != null ? alternatives : new ArrayList<>();
-        notifyDataSetChanged();
+        frameMonitor.measureNextFrames(REFRESH_FRAMES);
+        submitList(alternatives);
     }
 
+    static final DiffUtil.ItemCallback<Product> DIFF_CALLBACK = new DiffUtil.ItemCallback<Product>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                    && Objects.equals(oldItem.getNutriScoreGrade(), newItem.getNutriScoreGrade())
+                    && Objects.equals(oldItem.getNutriScore(), newItem.getNutriScore())
+                    && oldItem.getCalculatedScore() == newItem.getCalculatedScore()
+                    && oldItem.getScore() == newItem.getScore();
+        }
+    };
+
     private int getScoreColor(int score) {
         if (score >= 75) return Color.parseColor("#4CAF50");
         if (score >= 50) return Color.parseColor("#8BC34A");
@@ -8,21 +8,38 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.productinfoapp.R;
-import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductSummary;
 import com.example.productinfoapp.ui.productdetail.ProductDetailActivity;
-import java.util.ArrayList;
+import com.example.productinfoapp.util.FrameTimeMonitor;
 import java.util.List;
+import java.util.Objects;
+
+// Lists are diffed on a background thread (ListAdapter), so a refresh only
+// rebinds rows whose displayed content changed
+public class ProductAdapter extends ListAdapter<ProductSummary, ProductAdapter.ProductViewHolder> {
+    private static final int REFRESH_FRAMES = 30;
 
-public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder> {
-    private List<Product> products = new ArrayList<>();
     private Context context;
+    private final FrameTimeMonitor frameMonitor = new FrameTimeMonitor("ProductAdapter");
+
+    public ProductAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
 
-    public void setProducts(List<Product> products) {
-        this.products = products;
-        notifyDataSetChanged();
+    public void setProducts(List<ProductSummary> products) {
+        frameMonitor.measureNextFrames(REFRESH_FRAMES);
+        submitList(products);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getStableId();
     }
 
     @NonNull
@@ -35,11 +52,11 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
 
     @Override
     public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        Product product = products.get(position);
+        ProductSummary product = getItem(position);
         holder.textName.setText(product.getName());
         holder.textBrand.setText(product.getBrand());
         holder.textScore.setText("Score: " + product.getScore());
-        
+
         if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
             Glide.with(context)
                 .load(product.getImageUrl())
@@ -56,10 +73,21 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return products.size();
-    }
+    // Only the fields the row shows count as content
+    static final DiffUtil.ItemCallback<ProductSummary> DIFF_CALLBACK = new DiffUtil.ItemCallback<ProductSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ProductSummary oldItem, @NonNull ProductSummary newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ProductSummary oldItem, @NonNull ProductSummary newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getBrand(), newItem.getBrand())
+                    && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                    && oldItem.getScore() == newItem.getScore();
+        }
+    };
 
     static class ProductViewHolder extends RecyclerView.ViewHolder {
         ImageView imageView;
@@ -12,20 +12,19 @@ import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.productinfoapp.R;
 import com.example.productinfoapp.data.api.ApiService;
 import com.example.productinfoapp.data.api.RetrofitClient;
-import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductSummary;
 import com.example.productinfoapp.ui.history.HistoryActivity;
 import com.example.productinfoapp.ui.scanner.BarcodeScannerActivity;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import java.util.List;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class ProductListActivity extends AppCompatActivity {
     private static final String TAG = "ProductListActivity";
@@ -36,6 +35,10 @@ public class ProductListActivity extends AppCompatActivity {
     private EditText searchEditText;
     private FloatingActionButton fabScan, fabHistory;
     private ApiService apiService;
+    private ProductListViewModel viewModel;
+    private List<ProductSummary> catalog;
+    private boolean isSearching = false;
+    private SearchSession searchSession;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,12 +54,33 @@ public class ProductListActivity extends AppCompatActivity {
         fabScan = findViewById(R.id.fabScan);
         fabHistory = findViewById(R.id.fabHistory);
         
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         adapter = new ProductAdapter();
         recyclerView.setAdapter(adapter);
 
         apiService = RetrofitClient.getApiService();
 
+        // Catalog is shown while no search is active; it is a window of pages that
+        // follows scrolling
+        viewModel = new ViewModelProvider(this).get(ProductListViewModel.class);
+        viewModel.getAllProducts().observe(this, products -> {
+            catalog = products;
+            if (!isSearching) showCatalog();
+        });
+
+        searchSession = new SearchSession(apiService, viewModel::searchLocal,
+                viewModel::cacheSearchResults, this::onSearchResults);
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (isSearching || dy == 0) return;
+                viewModel.onCatalogScrolled(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+            }
+        });
+
         // Search on Enter key
         searchEditText.setOnEditorActionListener((v, actionId, event) -> {
             if (actionId == EditorInfo.IME_ACTION_SEARCH || 
@@ -67,29 +91,22 @@ public class ProductListActivity extends AppCompatActivity {
             return false;
         });
 
-        // Real-time search with debounce (search after 500ms of no typing)
+        // Real-time search; the session debounces, cancels and reuses results
         searchEditText.addTextChangedListener(new TextWatcher() {
-            private final android.os.Handler handler = new android.os.Handler();
-            private Runnable searchRunnable;
-
             @Override
             public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
 
             @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) {
-                if (searchRunnable != null) {
-                    handler.removeCallbacks(searchRunnable);
-                }
-            }
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
 
             @Override
             public void afterTextChanged(Editable s) {
                 String query = s.toString().trim();
-                if (query.length() >= 2) {
-                    searchRunnable = () -> performSearch(query);
-                    handler.postDelayed(searchRunnable, 500);
-                } else if (query.isEmpty()) {
-                    showEmptyState();
+                searchSession.onQueryChanged(query);
+                if (query.isEmpty()) {
+                    isSearching = false;
+                    progressBar.setVisibility(View.GONE);
+                    showCatalog();
                 }
             }
         });
@@ -109,36 +126,39 @@ public class ProductListActivity extends AppCompatActivity {
 
     private void performSearch(String query) {
         if (query.isEmpty()) {
-            showEmptyState();
+            searchSession.cancel();
+            isSearching = false;
+            showCatalog();
             return;
         }
+        searchSession.submit(query);
+    }
 
-        Log.d(TAG, "Searching for: " + query);
-        progressBar.setVisibility(View.VISIBLE);
-        emptyStateContainer.setVisibility(View.GONE);
-        recyclerView.setVisibility(View.GONE);
+    private void onSearchResults(String query, List<ProductSummary> results, boolean complete) {
+        isSearching = true;
+        progressBar.setVisibility(complete ? View.GONE : View.VISIBLE);
+        Log.d(TAG, "Search '" + query + "': " + results.size() + " results" + (complete ? "" : " so far"));
+        if (!results.isEmpty()) {
+            showResults(results);
+        } else if (complete) {
+            showNoResults();
+        }
+    }
 
-        apiService.searchProducts(query).enqueue(new Callback<List<Product>>() {
-            @Override
-            public void onResponse(Call<List<Product>> call, Response<List<Product>> response) {
-                progressBar.setVisibility(View.GONE);
-                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                    adapter.setProducts(response.body());
-                    recyclerView.setVisibility(View.VISIBLE);
-                    emptyStateContainer.setVisibility(View.GONE);
-                    Log.d(TAG, "Found " + response.body().size() + " products");
-                } else {
-                    showNoResults();
-                }
-            }
+    private void showResults(List<ProductSummary> products) {
+        adapter.setProducts(products);
+        recyclerView.setVisibility(View.VISIBLE);
+        emptyStateContainer.setVisibility(View.GONE);
+    }
 
-            @Override
-            public void onFailure(Call<List<Product>> call, Throwable t) {
-                progressBar.setVisibility(View.GONE);
-                Log.e(TAG, "Search failed", t);
-                showNoResults();
-            }
-        });
+    private void showCatalog() {
+        if (catalog == null || catalog.isEmpty()) {
+            showEmptyState();
+            return;
+        }
+        adapter.setProducts(catalog);
+        recyclerView.setVisibility(View.VISIBLE);
+        emptyStateContainer.setVisibility(View.GONE);
     }
 
     private void showEmptyState() {
@@ -158,4 +178,10 @@ public class ProductListActivity extends AppCompatActivity {
             emptyText.setText("No products found.\nTry a different search term.");
         }
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchSession.cancel();
+    }
 }
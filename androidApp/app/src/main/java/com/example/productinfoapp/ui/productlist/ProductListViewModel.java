@@ -4,26 +4,40 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.model.ProductSummary;
 import com.example.productinfoapp.data.repository.ProductRepository;
 import java.util.List;
 
 public class ProductListViewModel extends AndroidViewModel {
     private ProductRepository repository;
-    private LiveData<List<Product>> allProducts;
+    private LiveData<List<ProductSummary>> allProducts;
 
     public ProductListViewModel(@NonNull Application application) {
         super(application);
         repository = new ProductRepository(application);
         allProducts = repository.getAllProducts();
+        repository.refreshBarcodeIndexIfStale();
+        repository.syncChanges();
     }
 
-    public LiveData<List<Product>> getAllProducts() {
+    public LiveData<List<ProductSummary>> getAllProducts() {
         return allProducts;
     }
 
     public void refreshProducts() {
         repository.refreshProducts();
     }
+
+    public LiveData<List<ProductSummary>> searchLocal(String query) {
+        return repository.searchLocal(query);
+    }
+
+    public void cacheSearchResults(List<ProductSummary> products) {
+        repository.cacheSummaries(products);
+    }
+
+    public void onCatalogScrolled(int firstVisible, int lastVisible) {
+        repository.onCatalogScrolled(firstVisible, lastVisible);
+    }
 }
 
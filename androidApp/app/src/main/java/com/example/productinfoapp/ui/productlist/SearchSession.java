@@ -0,0 +1,224 @@
+package com.example.productinfoapp.ui.productlist;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import com.example.productinfoapp.data.api.ApiService;
+import com.example.productinfoapp.data.model.ProductSummary;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Search-as-you-type for the product list. Each query gets a sequence number and
+// anything that answers for an older one is dropped; a superseded backend call
+// is cancelled. Remote results are kept per query, and a refinement of a query
+// whose results were complete ("cho" -> "choc") is narrowed locally instead of
+// refetched. The debounce follows the measured backend round-trip time.
+// Must be used from the main thread.
+public class SearchSession {
+    private static final String TAG = "SearchSession";
+
+    public interface Listener {
+        // complete is false while a backend answer may still follow
+        void onResults(String query, List<ProductSummary> results, boolean complete);
+    }
+
+    public interface LocalSearch {
+        LiveData<List<ProductSummary>> search(String query);
+    }
+
+    public interface RemoteResultsSink {
+        void onRemoteResults(List<ProductSummary> products);
+    }
+
+    // Backend caps products/search at this many results; fewer means the set is complete
+    static final int REMOTE_RESULT_CAP = 50;
+    // Enough local matches to skip the backend search entirely
+    static final int LOCAL_RESULTS_SUFFICIENT = 20;
+    static final int MIN_QUERY_LENGTH = 2;
+
+    private static final long MIN_DEBOUNCE_MILLIS = 150;
+    private static final long MAX_DEBOUNCE_MILLIS = 600;
+    private static final double RTT_SMOOTHING = 0.2;
+
+    private final ApiService apiService;
+    private final LocalSearch localSearch;
+    private final RemoteResultsSink remoteSink;
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, List<ProductSummary>> remoteResults = new LruCache<>(32);
+
+    private int sequence = 0;
+    private Call<List<ProductSummary>> inFlight;
+    private Runnable pendingSearch;
+    private double rttEstimateMillis = 400;
+
+    public SearchSession(ApiService apiService, LocalSearch localSearch,
+                         RemoteResultsSink remoteSink, Listener listener) {
+        this.apiService = apiService;
+        this.localSearch = localSearch;
+        this.remoteSink = remoteSink;
+        this.listener = listener;
+    }
+
+    // Called on every keystroke; runs the search once typing pauses
+    public void onQueryChanged(String query) {
+        cancelPending();
+        if (query.length() < MIN_QUERY_LENGTH) {
+            // Invalidate anything still in flight for the previous query
+            sequence++;
+            cancelInFlight();
+            return;
+        }
+        pendingSearch = () -> search(query);
+        handler.postDelayed(pendingSearch, getDebounceMillis());
+    }
+
+    // Runs immediately, e.g. for the IME search action
+    public void submit(String query) {
+        cancelPending();
+        search(query);
+    }
+
+    public void cancel() {
+        cancelPending();
+        cancelInFlight();
+        sequence++;
+    }
+
+    public long getDebounceMillis() {
+        long debounce = Math.round(rttEstimateMillis * 0.75);
+        return Math.max(MIN_DEBOUNCE_MILLIS, Math.min(MAX_DEBOUNCE_MILLIS, debounce));
+    }
+
+    public long getRttEstimateMillis() {
+        return Math.round(rttEstimateMillis);
+    }
+
+    private void search(String query) {
+        final int seq = ++sequence;
+        cancelInFlight();
+
+        LiveData<List<ProductSummary>> local = localSearch.search(query);
+        local.observeForever(new Observer<List<ProductSummary>>() {
+            @Override
+            public void onChanged(List<ProductSummary> results) {
+                local.removeObserver(this);
+                if (seq != sequence) return;
+                onLocalResults(seq, query, results != null ? results : new ArrayList<>());
+            }
+        });
+    }
+
+    private void onLocalResults(int seq, String query, List<ProductSummary> localResults) {
+        List<ProductSummary> narrowed = narrowFromCache(query);
+        if (narrowed != null) {
+            Log.d(TAG, "Narrowed '" + query + "' from a cached broader query");
+            listener.onResults(query, merge(localResults, narrowed), true);
+            return;
+        }
+        if (localResults.size() >= LOCAL_RESULTS_SUFFICIENT) {
+            listener.onResults(query, localResults, true);
+            return;
+        }
+        listener.onResults(query, localResults, false);
+
+        final long started = SystemClock.elapsedRealtime();
+        Call<List<ProductSummary>> call = apiService.searchProducts(query);
+        inFlight = call;
+        call.enqueue(new Callback<List<ProductSummary>>() {
+            @Override
+            public void onResponse(Call<List<ProductSummary>> call, Response<List<ProductSummary>> response) {
+                recordRtt(SystemClock.elapsedRealtime() - started);
+                if (call.isCanceled() || seq != sequence) return;
+                inFlight = null;
+                List<ProductSummary> remote = response.isSuccessful() && response.body() != null
+                        ? response.body() : null;
+                if (remote != null) {
+                    remoteResults.put(normalize(query), remote);
+                    remoteSink.onRemoteResults(remote);
+                }
+                listener.onResults(query, remote != null ? merge(localResults, remote) : localResults, true);
+            }
+
+            @Override
+            public void onFailure(Call<List<ProductSummary>> call, Throwable t) {
+                if (call.isCanceled() || seq != sequence) return;
+                inFlight = null;
+                Log.e(TAG, "Search failed", t);
+                listener.onResults(query, localResults, true);
+            }
+        });
+    }
+
+    // Backend matching is a case-insensitive substring of name or brand, so the
+    // results for a refinement are a subset of a complete result set for any prefix
+    private List<ProductSummary> narrowFromCache(String query) {
+        String normalized = normalize(query);
+        for (int length = normalized.length(); length >= MIN_QUERY_LENGTH; length--) {
+            List<ProductSummary> broader = remoteResults.get(normalized.substring(0, length));
+            if (broader == null) continue;
+            if (length < normalized.length() && broader.size() >= REMOTE_RESULT_CAP) {
+                return null; // Truncated, so the refinement may have matches we never saw
+            }
+            List<ProductSummary> narrowed = new ArrayList<>();
+            for (ProductSummary product : broader) {
+                if (contains(product.getName(), normalized) || contains(product.getBrand(), normalized)) {
+                    narrowed.add(product);
+                }
+            }
+            return narrowed;
+        }
+        return null;
+    }
+
+    private void recordRtt(long millis) {
+        rttEstimateMillis = (1 - RTT_SMOOTHING) * rttEstimateMillis + RTT_SMOOTHING * millis;
+    }
+
+    private void cancelPending() {
+        if (pendingSearch != null) {
+            handler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+    }
+
+    private static boolean contains(String value, String normalizedQuery) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(normalizedQuery);
+    }
+
+    private static String normalize(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Local ranking first, then remote-only products in backend order
+    static List<ProductSummary> merge(List<ProductSummary> local, List<ProductSummary> remote) {
+        List<ProductSummary> merged = new ArrayList<>(local);
+        Set<String> seen = new HashSet<>();
+        for (ProductSummary product : local) {
+            seen.add(product.getId());
+        }
+        for (ProductSummary product : remote) {
+            if (seen.add(product.getId())) {
+                merged.add(product);
+            }
+        }
+        return merged;
+    }
+}
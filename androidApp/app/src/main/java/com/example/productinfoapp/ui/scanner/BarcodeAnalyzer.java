@@ -0,0 +1,243 @@
+package com.example.productinfoapp.ui.scanner;
+
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.media.Image;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.camera.core.ExperimentalGetImage;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import com.example.productinfoapp.util.LatencyHistogram;
+import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.common.InputImage;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Camera frames to barcodes. With ScanConfig.cropToScanFrame, only the luma of
+// the region under the on-screen scan frame (plus a margin) is copied out and
+// handed to ML Kit as a grey NV21 image, which is all barcode detection reads.
+// That is a fraction of the frame's pixels, and the camera frame is released
+// right after the copy instead of after decoding. One frame is decoded at a
+// time; with adaptive skipping, frames are also dropped so ML Kit gets at most
+// about half the analysis thread's time, using its measured average. Timings
+// for every analyzed frame are kept in Stats.
+public class BarcodeAnalyzer implements ImageAnalysis.Analyzer {
+    private static final String TAG = "BarcodeAnalyzer";
+    private static final double MAX_DECODE_DUTY = 0.5;
+    private static final long MAX_SKIP_MILLIS = 500;
+    private static final double AVERAGE_WEIGHT = 0.2;
+
+    public interface Listener {
+        // Main thread
+        void onBarcode(String value);
+    }
+
+    public static class Stats {
+        public final LatencyHistogram crop = new LatencyHistogram();
+        public final LatencyHistogram decode = new LatencyHistogram();
+        public final LatencyHistogram total = new LatencyHistogram();
+        private final AtomicLong frames = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong decodedPixels = new AtomicLong();
+
+        public long getFrames() { return frames.get(); }
+        public long getSkipped() { return skipped.get(); }
+
+        public double getAveragePixels() {
+            long n = decode.getCount();
+            return n > 0 ? (double) decodedPixels.get() / n : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "frames=%d skipped=%d avgPixels=%.0f%n  crop: %s%n  decode: %s%n  total: %s",
+                    getFrames(), getSkipped(), getAveragePixels(), crop, decode, total);
+        }
+    }
+
+    private final BarcodeScanner scanner;
+    private final ScanConfig config;
+    private final BooleanSupplier paused;
+    private final Listener listener;
+    private final Stats stats = new Stats();
+    private final AtomicBoolean busy = new AtomicBoolean(false);
+
+    // Scan frame as fractions of the preview (upright), set from the main thread
+    private volatile RectF frameRegion;
+    private volatile double averageDecodeMillis = 0;
+    private volatile long lastDecodeEnd = 0;
+    // Analysis thread only; not touched while a decode is running
+    private byte[] nv21;
+
+    public BarcodeAnalyzer(BarcodeScanner scanner, ScanConfig config, BooleanSupplier paused,
+                           Listener listener) {
+        this.scanner = scanner;
+        this.config = config;
+        this.paused = paused;
+        this.listener = listener;
+    }
+
+    public void setFrameRegion(RectF frameRegion) {
+        this.frameRegion = frameRegion;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void analyze(@NonNull ImageProxy image) {
+        stats.frames.incrementAndGet();
+        long start = System.nanoTime();
+        if (paused.getAsBoolean() || shouldSkip(start) || !busy.compareAndSet(false, true)) {
+            stats.skipped.incrementAndGet();
+            image.close();
+            return;
+        }
+        if (config.cropToScanFrame) {
+            InputImage input;
+            try {
+                input = cropLuma(image);
+            } catch (RuntimeException e) {
+                // e.g. a crop rect outside the plane; drop the frame, keep scanning
+                Log.e(TAG, "Could not crop frame", e);
+                busy.set(false);
+                return;
+            } finally {
+                image.close();
+            }
+            stats.crop.record(System.nanoTime() - start);
+            decode(input, null, start);
+        } else {
+            decodeFullFrame(image, start);
+        }
+    }
+
+    @OptIn(markerClass = ExperimentalGetImage.class)
+    private void decodeFullFrame(ImageProxy image, long start) {
+        Image media = image.getImage();
+        if (media == null) {
+            image.close();
+            busy.set(false);
+            return;
+        }
+        decode(InputImage.fromMediaImage(media, image.getImageInfo().getRotationDegrees()), image, start);
+    }
+
+    private void decode(InputImage input, ImageProxy toClose, long start) {
+        long decodeStart = System.nanoTime();
+        stats.decodedPixels.addAndGet((long) input.getWidth() * input.getHeight());
+        scanner.process(input)
+                .addOnSuccessListener(barcodes -> {
+                    if (paused.getAsBoolean()) return;
+                    for (Barcode barcode : barcodes) {
+                        if (barcode.getRawValue() != null) {
+                            listener.onBarcode(barcode.getRawValue());
+                            return;
+                        }
+                    }
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Barcode analysis failed", e))
+                .addOnCompleteListener(task -> {
+                    long end = System.nanoTime();
+                    long decodeNanos = end - decodeStart;
+                    stats.decode.record(decodeNanos);
+                    stats.total.record(end - start);
+                    double millis = decodeNanos / 1_000_000.0;
+                    averageDecodeMillis = averageDecodeMillis == 0
+                            ? millis
+                            : averageDecodeMillis + AVERAGE_WEIGHT * (millis - averageDecodeMillis);
+                    lastDecodeEnd = end;
+                    if (toClose != null) toClose.close();
+                    busy.set(false);
+                });
+    }
+
+    // Idle time after a decode that keeps ML Kit under MAX_DECODE_DUTY
+    private boolean shouldSkip(long now) {
+        if (!config.adaptiveSkipping || lastDecodeEnd == 0) return false;
+        double idleMillis = averageDecodeMillis * (1 / MAX_DECODE_DUTY - 1);
+        long minGapNanos = (long) (Math.min(idleMillis, MAX_SKIP_MILLIS) * 1_000_000);
+        return now - lastDecodeEnd < minGapNanos;
+    }
+
+    // Copies the Y plane under the scan frame into a grey NV21 buffer
+    private InputImage cropLuma(ImageProxy image) {
+        Rect region = regionInBuffer(image);
+        int width = region.width();
+        int height = region.height();
+        int size = width * height * 3 / 2;
+        if (nv21 == null || nv21.length != size) {
+            nv21 = new byte[size];
+            // Neutral chroma; it is never rewritten
+            Arrays.fill(nv21, width * height, size, (byte) 128);
+        }
+
+        ImageProxy.PlaneProxy plane = image.getPlanes()[0];
+        ByteBuffer luma = plane.getBuffer();
+        int rowStride = plane.getRowStride();
+        int pixelStride = plane.getPixelStride();
+        for (int row = 0; row < height; row++) {
+            int rowStart = (region.top + row) * rowStride + region.left * pixelStride;
+            if (pixelStride == 1) {
+                luma.position(rowStart);
+                luma.get(nv21, row * width, width);
+            } else {
+                for (int col = 0; col < width; col++) {
+                    nv21[row * width + col] = luma.get(rowStart + col * pixelStride);
+                }
+            }
+        }
+        return InputImage.fromByteArray(nv21, width, height,
+                image.getImageInfo().getRotationDegrees(), InputImage.IMAGE_FORMAT_NV21);
+    }
+
+    // The scan frame (upright preview fractions) in buffer pixels. The crop rect
+    // is the part of the buffer the preview shows, given a shared ViewPort.
+    private Rect regionInBuffer(ImageProxy image) {
+        Rect visible = image.getCropRect();
+        RectF frame = frameRegion;
+        if (frame == null) return evenAligned(visible, visible);
+
+        float mx = frame.width() * config.frameMargin;
+        float my = frame.height() * config.frameMargin;
+        float left = Math.max(0f, frame.left - mx);
+        float top = Math.max(0f, frame.top - my);
+        float right = Math.min(1f, frame.right + mx);
+        float bottom = Math.min(1f, frame.bottom + my);
+
+        // Undo the rotation the display applies to the buffer
+        RectF f;
+        switch (image.getImageInfo().getRotationDegrees()) {
+            case 90: f = new RectF(top, 1 - right, bottom, 1 - left); break;
+            case 180: f = new RectF(1 - right, 1 - bottom, 1 - left, 1 - top); break;
+            case 270: f = new RectF(1 - bottom, left, 1 - top, right); break;
+            default: f = new RectF(left, top, right, bottom);
+        }
+        Rect region = new Rect(
+                visible.left + (int) (f.left * visible.width()),
+                visible.top + (int) (f.top * visible.height()),
+                visible.left + (int) (f.right * visible.width()),
+                visible.top + (int) (f.bottom * visible.height()));
+        return evenAligned(region, visible);
+    }
+
+    // NV21 needs even dimensions
+    private static Rect evenAligned(Rect rect, Rect bounds) {
+        int left = Math.max(bounds.left, rect.left) & ~1;
+        int top = Math.max(bounds.top, rect.top) & ~1;
+        int right = Math.min(bounds.right, rect.right);
+        int bottom = Math.min(bounds.bottom, rect.bottom);
+        right = left + Math.max(2, (right - left) & ~1);
+        bottom = top + Math.max(2, (bottom - top) & ~1);
+        return new Rect(left, top, right, bottom);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.productinfoapp.ui.scanner;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.graphics.RectF;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
@@ -14,8 +15,11 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
-import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.UseCaseGroup;
+import androidx.camera.core.ViewPort;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
@@ -24,16 +28,17 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.mlkit.vision.barcode.BarcodeScanner;
 import com.google.mlkit.vision.barcode.BarcodeScannerOptions;
 import com.google.mlkit.vision.barcode.BarcodeScanning;
-import com.google.mlkit.vision.barcode.common.Barcode;
-import com.google.mlkit.vision.common.InputImage;
 import com.example.productinfoapp.R;
-import com.example.productinfoapp.data.api.ApiService;
-import com.example.productinfoapp.data.api.RetrofitClient;
+import com.example.productinfoapp.data.api.CircuitOpenException;
+import com.example.productinfoapp.data.api.ProductLookup;
 import com.example.productinfoapp.data.local.AppDatabase;
 import com.example.productinfoapp.data.local.ScanHistoryDao;
 import com.example.productinfoapp.data.local.ScanHistoryEntity;
 import com.example.productinfoapp.data.model.Product;
+import com.example.productinfoapp.data.repository.HistoryCompactor;
+import com.example.productinfoapp.data.repository.ProductRepository;
 import com.example.productinfoapp.ui.productdetail.ProductDetailActivity;
+import com.example.productinfoapp.util.AppExecutors;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import retrofit2.Call;
@@ -48,12 +53,18 @@ public class BarcodeScannerActivity extends AppCompatActivity {
     private ProgressBar progressBar;
     private TextView instructionText;
     private ImageButton closeButton;
+    private View scanFrame;
     
     private ExecutorService cameraExecutor;
     private BarcodeScanner scanner;
-    private boolean isProcessing = false;
-    private ApiService apiService;
+    private volatile boolean isProcessing = false;
+    private ScanConfig scanConfig;
+    private BarcodeAnalyzer analyzer;
+    private ProductLookup productLookup;
     private ScanHistoryDao historyDao;
+    private HistoryCompactor historyCompactor;
+    private AppExecutors executors;
+    private ProductRepository repository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -64,22 +75,27 @@ public class BarcodeScannerActivity extends AppCompatActivity {
         progressBar = findViewById(R.id.progressBar);
         instructionText = findViewById(R.id.instructionText);
         closeButton = findViewById(R.id.closeButton);
+        scanFrame = findViewById(R.id.scanFrame);
 
         closeButton.setOnClickListener(v -> finish());
 
-        apiService = RetrofitClient.getApiService();
+        productLookup = ProductLookup.getInstance();
+        executors = AppExecutors.getInstance();
+        repository = new ProductRepository(getApplication());
         cameraExecutor = Executors.newSingleThreadExecutor();
 
+        scanConfig = ScanConfig.forDevice(this);
         BarcodeScannerOptions options = new BarcodeScannerOptions.Builder()
-            .setBarcodeFormats(
-                Barcode.FORMAT_EAN_13,
-                Barcode.FORMAT_EAN_8,
-                Barcode.FORMAT_UPC_A,
-                Barcode.FORMAT_UPC_E,
-                Barcode.FORMAT_CODE_128,
-                Barcode.FORMAT_QR_CODE)
+            .setBarcodeFormats(ScanConfig.PRIMARY_FORMAT, ScanConfig.OTHER_FORMATS)
             .build();
         scanner = BarcodeScanning.getClient(options);
+        analyzer = new BarcodeAnalyzer(scanner, scanConfig, () -> isProcessing, value -> {
+            if (isProcessing) return;
+            isProcessing = true;
+            onBarcodeDetected(value);
+        });
+        previewView.addOnLayoutChangeListener((v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) ->
+            analyzer.setFrameRegion(scanFrameRegion()));
 
         if (checkCameraPermission()) {
             startCamera();
@@ -134,64 +150,73 @@ public class BarcodeScannerActivity extends AppCompatActivity {
         preview.setSurfaceProvider(previewView.getSurfaceProvider());
 
         ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+            .setResolutionSelector(new ResolutionSelector.Builder()
+                .setResolutionStrategy(new ResolutionStrategy(scanConfig.analysisResolution,
+                    ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                .build())
             .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
             .build();
 
-        imageAnalysis.setAnalyzer(cameraExecutor, this::analyzeImage);
+        analyzer.setFrameRegion(scanFrameRegion());
+        imageAnalysis.setAnalyzer(cameraExecutor, analyzer);
+
+        // A shared viewport makes each analysis frame's crop rect the area the
+        // preview shows, so the scan frame's position maps onto the buffer
+        UseCaseGroup.Builder useCases = new UseCaseGroup.Builder()
+            .addUseCase(preview)
+            .addUseCase(imageAnalysis);
+        ViewPort viewPort = previewView.getViewPort();
+        if (viewPort != null) {
+            useCases.setViewPort(viewPort);
+        }
 
         CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
 
         cameraProvider.unbindAll();
-        cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+        cameraProvider.bindToLifecycle(this, cameraSelector, useCases.build());
+    }
+
+    // The scan frame overlay as fractions of the preview, or null before layout
+    private RectF scanFrameRegion() {
+        if (previewView.getWidth() == 0 || previewView.getHeight() == 0) return null;
+        float width = previewView.getWidth();
+        float height = previewView.getHeight();
+        return new RectF(
+            (scanFrame.getLeft() - previewView.getLeft()) / width,
+            (scanFrame.getTop() - previewView.getTop()) / height,
+            (scanFrame.getRight() - previewView.getLeft()) / width,
+            (scanFrame.getBottom() - previewView.getTop()) / height);
     }
 
-    @androidx.camera.core.ExperimentalGetImage
-    private void analyzeImage(ImageProxy imageProxy) {
-        if (isProcessing) {
-            imageProxy.close();
+    private void onBarcodeDetected(String barcode) {
+        Log.d(TAG, "Barcode detected: " + barcode);
+
+        // Rescans of a recently seen product skip the network entirely
+        Product cached = repository.getCachedByBarcode(barcode);
+        if (cached != null) {
+            openProduct(barcode, cached);
             return;
         }
 
-        if (imageProxy.getImage() == null) {
-            imageProxy.close();
+        // Then the offline snapshot, so scanning works without a network
+        Product indexed = repository.findInBarcodeIndex(barcode);
+        if (indexed != null) {
+            repository.cacheSummary(indexed);
+            openProduct(barcode, indexed);
             return;
         }
 
-        InputImage image = InputImage.fromMediaImage(
-            imageProxy.getImage(), 
-            imageProxy.getImageInfo().getRotationDegrees());
-
-        scanner.process(image)
-            .addOnSuccessListener(barcodes -> {
-                if (!barcodes.isEmpty() && !isProcessing) {
-                    String barcodeValue = barcodes.get(0).getRawValue();
-                    if (barcodeValue != null) {
-                        isProcessing = true;
-                        runOnUiThread(() -> onBarcodeDetected(barcodeValue));
-                    }
-                }
-            })
-            .addOnFailureListener(e -> Log.e(TAG, "Barcode analysis failed", e))
-            .addOnCompleteListener(task -> imageProxy.close());
-    }
-
-    private void onBarcodeDetected(String barcode) {
-        Log.d(TAG, "Barcode detected: " + barcode);
-        
         progressBar.setVisibility(View.VISIBLE);
         instructionText.setText("Looking up product...");
 
-        apiService.getProductByBarcode(barcode).enqueue(new Callback<Product>() {
+        productLookup.getProductByBarcode(barcode, new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
                 progressBar.setVisibility(View.GONE);
                 if (response.isSuccessful() && response.body() != null) {
                     Product product = response.body();
-                    saveToHistory(barcode, product);
-                    Intent intent = new Intent(BarcodeScannerActivity.this, ProductDetailActivity.class);
-                    intent.putExtra("product_id", product.getId());
-                    startActivity(intent);
-                    finish();
+                    repository.cacheProduct(product);
+                    openProduct(barcode, product);
                 } else {
                     instructionText.setText("Product not found. Try again.");
                     isProcessing = false;
@@ -200,17 +225,35 @@ public class BarcodeScannerActivity extends AppCompatActivity {
 
             @Override
             public void onFailure(Call<Product> call, Throwable t) {
-                progressBar.setVisibility(View.GONE);
-                instructionText.setText("Error looking up product. Try again.");
                 Log.e(TAG, "API call failed", t);
-                isProcessing = false;
+                // Last resort: a copy stored earlier by the list or a previous scan
+                repository.findStoredByBarcode(barcode).observe(BarcodeScannerActivity.this, stored -> {
+                    progressBar.setVisibility(View.GONE);
+                    if (stored != null) {
+                        openProduct(barcode, stored);
+                        return;
+                    }
+                    instructionText.setText(t instanceof CircuitOpenException
+                            ? "Server unavailable. Try again shortly."
+                            : "Error looking up product. Try again.");
+                    isProcessing = false;
+                });
             }
         });
     }
 
+    private void openProduct(String barcode, Product product) {
+        saveToHistory(barcode, product);
+        Intent intent = new Intent(this, ProductDetailActivity.class);
+        intent.putExtra("product_id", product.getId());
+        startActivity(intent);
+        finish();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        Log.d(TAG, scanConfig + "\n" + analyzer.getStats());
         cameraExecutor.shutdown();
         scanner.close();
     }
@@ -218,8 +261,9 @@ public class BarcodeScannerActivity extends AppCompatActivity {
     private void saveToHistory(String barcode, Product product) {
         if (historyDao == null) {
             historyDao = AppDatabase.getInstance(this).scanHistoryDao();
+            historyCompactor = HistoryCompactor.getInstance(this);
         }
-        Executors.newSingleThreadExecutor().execute(() -> {
+        executors.diskIO().execute(() -> {
             int score = product.getCalculatedScore();
             if (score == 0) score = (int) product.getScore();
             String nutri = product.getNutriScoreGrade();
@@ -234,7 +278,8 @@ public class BarcodeScannerActivity extends AppCompatActivity {
                 product.isOrganic(),
                 "Local"
             );
-            historyDao.insert(entity);
+            historyDao.recordScan(entity, product.getNutrition(), historyCompactor.isEventLogEnabled());
         });
+        historyCompactor.compactIfDue();
     }
 }
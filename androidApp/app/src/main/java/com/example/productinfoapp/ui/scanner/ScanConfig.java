@@ -0,0 +1,51 @@
+package com.example.productinfoapp.ui.scanner;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Size;
+import com.google.mlkit.vision.barcode.common.Barcode;
+
+// Settings for the scanner's analysis pipeline (see BarcodeAnalyzer). forDevice
+// asks for a smaller analysis resolution on low-end devices, where ML Kit time
+// per frame is what makes scanning feel slow.
+public final class ScanConfig {
+    // Retail product codes only; the backend looks products up by EAN/UPC
+    public static final int PRIMARY_FORMAT = Barcode.FORMAT_EAN_13;
+    public static final int[] OTHER_FORMATS = {
+            Barcode.FORMAT_EAN_8, Barcode.FORMAT_UPC_A, Barcode.FORMAT_UPC_E};
+
+    private static final Size DEFAULT_RESOLUTION = new Size(1280, 720);
+    private static final Size LOW_END_RESOLUTION = new Size(640, 480);
+    // Per-app heap of a typical 2-3 GB phone and below
+    private static final int LOW_END_MEMORY_CLASS_MB = 192;
+
+    // Target for CameraX, in sensor orientation; the closest supported size is used
+    public final Size analysisResolution;
+    // Decode only the part of the frame under the on-screen scan frame
+    public final boolean cropToScanFrame;
+    // Extra room around the scan frame on each side, as a fraction of its size
+    public final float frameMargin;
+    // Skip frames so ML Kit uses at most about half the analysis thread's time
+    public final boolean adaptiveSkipping;
+
+    public ScanConfig(Size analysisResolution, boolean cropToScanFrame, float frameMargin,
+                      boolean adaptiveSkipping) {
+        this.analysisResolution = analysisResolution;
+        this.cropToScanFrame = cropToScanFrame;
+        this.frameMargin = frameMargin;
+        this.adaptiveSkipping = adaptiveSkipping;
+    }
+
+    public static ScanConfig forDevice(Context context) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowEnd = am != null
+                && (am.isLowRamDevice() || am.getMemoryClass() <= LOW_END_MEMORY_CLASS_MB);
+        return new ScanConfig(lowEnd ? LOW_END_RESOLUTION : DEFAULT_RESOLUTION, true, 0.15f, true);
+    }
+
+    @Override
+    public String toString() {
+        return "ScanConfig{resolution=" + analysisResolution + ", crop=" + cropToScanFrame
+                + ", margin=" + frameMargin + ", adaptiveSkipping=" + adaptiveSkipping + "}";
+    }
+}
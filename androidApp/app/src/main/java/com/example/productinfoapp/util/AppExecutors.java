@@ -0,0 +1,46 @@
+package com.example.productinfoapp.util;
+
+import android.util.Log;
+
+// Shared executors for the whole app, instead of a new Thread or executor per call.
+// Database writes go through a single thread so there is never more than one
+// SQLite writer; network post-processing and CPU work get their own small pools.
+public class AppExecutors {
+    private static final String TAG = "AppExecutors";
+    private static volatile AppExecutors INSTANCE;
+
+    private final MonitoredExecutor diskIO;
+    private final MonitoredExecutor networkIO;
+    private final MonitoredExecutor compute;
+
+    public AppExecutors(MonitoredExecutor diskIO, MonitoredExecutor networkIO, MonitoredExecutor compute) {
+        this.diskIO = diskIO;
+        this.networkIO = networkIO;
+        this.compute = compute;
+    }
+
+    public static AppExecutors getInstance() {
+        if (INSTANCE == null) {
+            synchronized (AppExecutors.class) {
+                if (INSTANCE == null) {
+                    int cores = Math.max(2, Runtime.getRuntime().availableProcessors());
+                    INSTANCE = new AppExecutors(
+                            new MonitoredExecutor("disk-io", 1),
+                            new MonitoredExecutor("network-io", 3),
+                            new MonitoredExecutor("compute", cores));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public MonitoredExecutor diskIO() { return diskIO; }
+    public MonitoredExecutor networkIO() { return networkIO; }
+    public MonitoredExecutor compute() { return compute; }
+
+    public void logStats() {
+        Log.d(TAG, diskIO.toString());
+        Log.d(TAG, networkIO.toString());
+        Log.d(TAG, compute.toString());
+    }
+}
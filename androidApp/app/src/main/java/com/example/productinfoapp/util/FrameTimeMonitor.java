@@ -0,0 +1,87 @@
+package com.example.productinfoapp.util;
+
+import android.util.Log;
+import android.view.Choreographer;
+import java.util.Arrays;
+
+// Records frame intervals through Choreographer while started, so list refreshes
+// can be checked against the frame budget. Main thread only.
+public class FrameTimeMonitor implements Choreographer.FrameCallback {
+    private static final String TAG = "FrameTimeMonitor";
+    public static final long FRAME_BUDGET_NANOS = 16_666_667L; // 60 Hz
+    private static final int MAX_SAMPLES = 600;
+
+    private final String name;
+    private final long[] intervals = new long[MAX_SAMPLES];
+    private int count = 0;
+    private int overBudget = 0;
+    private long lastFrameNanos = 0;
+    private boolean running = false;
+    private int framesLeft = -1; // -1 = until stop()
+
+    public FrameTimeMonitor(String name) {
+        this.name = name;
+    }
+
+    // Records the next few frames, e.g. around a list refresh, then logs a summary
+    public void measureNextFrames(int frames) {
+        framesLeft = frames;
+        if (!running) {
+            count = 0;
+            overBudget = 0;
+            startInternal();
+        }
+    }
+
+    public void start() {
+        framesLeft = -1;
+        startInternal();
+    }
+
+    private void startInternal() {
+        if (running) return;
+        running = true;
+        lastFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    // Stops recording and logs a summary of the frames seen since start()
+    public void stop() {
+        if (!running) return;
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        Log.d(TAG, summary());
+        count = 0;
+        overBudget = 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+        if (lastFrameNanos != 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            if (interval > FRAME_BUDGET_NANOS * 3 / 2) overBudget++;
+            intervals[count % MAX_SAMPLES] = interval;
+            count++;
+        }
+        lastFrameNanos = frameTimeNanos;
+        if (framesLeft > 0 && --framesLeft == 0) {
+            stop();
+            return;
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public int getFrameCount() { return count; }
+    public int getOverBudgetCount() { return overBudget; }
+
+    public String summary() {
+        int samples = Math.min(count, MAX_SAMPLES);
+        if (samples == 0) return name + ": no frames";
+        long[] sorted = Arrays.copyOf(intervals, samples);
+        Arrays.sort(sorted);
+        return String.format("%s: frames=%d, overBudget=%d, p50=%.1fms, p95=%.1fms, max=%.1fms",
+                name, count, overBudget,
+                sorted[samples / 2] / 1e6, sorted[(int) (samples * 0.95)] / 1e6, sorted[samples - 1] / 1e6);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.productinfoapp.util;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-bucket latency histogram, cheap enough to update on every request.
+// Percentiles are reported as the upper bound of the bucket they fall in.
+public class LatencyHistogram {
+    // Bucket upper bounds in milliseconds; the last bucket is everything above
+    private static final long[] BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) return;
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && millis >= BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max;
+        do {
+            max = maxNanos.get();
+        } while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+    }
+
+    public long getCount() { return count.get(); }
+
+    public double getAverageMillis() {
+        long n = count.get();
+        return n > 0 ? totalNanos.get() / (double) n / 1_000_000.0 : 0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), or max if it is the last one
+    public double getPercentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i < BOUNDS_MILLIS.length ? Math.min(BOUNDS_MILLIS[i], getMaxMillis()) : getMaxMillis();
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d avg=%.1fms p50<=%.0fms p95<=%.0fms max=%.1fms",
+                getCount(), getAverageMillis(), getPercentileMillis(50), getPercentileMillis(95), getMaxMillis());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.productinfoapp.util;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fixed-size thread pool that keeps track of queue depth, active threads and
+// task latency (time from submission to completion).
+public class MonitoredExecutor extends ThreadPoolExecutor {
+    private final String name;
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public MonitoredExecutor(String name, int threads) {
+        super(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        this.name = name;
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedTask(command, System.nanoTime()));
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        if (r instanceof TimedTask) {
+            long latency = System.nanoTime() - ((TimedTask) r).submittedAt;
+            completedTasks.incrementAndGet();
+            totalLatencyNanos.addAndGet(latency);
+            long max;
+            do {
+                max = maxLatencyNanos.get();
+            } while (latency > max && !maxLatencyNanos.compareAndSet(max, latency));
+        }
+    }
+
+    public String getName() { return name; }
+    public int getQueueDepth() { return getQueue().size(); }
+    public int getActiveThreads() { return getActiveCount(); }
+    public long getCompletedTasks() { return completedTasks.get(); }
+
+    public double getAverageLatencyMillis() {
+        long count = completedTasks.get();
+        if (count == 0) return 0;
+        return totalLatencyNanos.get() / (double) count / 1_000_000.0;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{queue=%d, active=%d, completed=%d, avgLatency=%.1fms, maxLatency=%.1fms}",
+                name, getQueueDepth(), getActiveThreads(), getCompletedTasks(),
+                getAverageLatencyMillis(), getMaxLatencyMillis());
+    }
+
+    private static class TimedTask implements Runnable {
+        final Runnable delegate;
+        final long submittedAt;
+
+        TimedTask(Runnable delegate, long submittedAt) {
+            this.delegate = delegate;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
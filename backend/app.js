@@ -1,6 +1,7 @@
 const express = require('express');
 const { connectDB } = require('./models');
 const productRoutes = require('./routes/productRoutes');
+const faultInjection = require('./utils/faultInjection');
 require('dotenv').config();
 
 const app = express();
@@ -8,6 +9,8 @@ const PORT = process.env.PORT || 3000;
 
 // Middleware
 app.use(express.json());
+// No-op unless FAULT_* variables are set, see utils/faultInjection.js
+app.use(faultInjection());
 
 // Routes
 app.use('/products', productRoutes);
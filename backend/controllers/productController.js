@@ -1,5 +1,28 @@
-const { Product } = require('../models');
+const mongoose = require('mongoose');
+const { Product, DeletedProduct } = require('../models');
 const { calculateHealthScore, getNutriScoreGrade, getScoreCategory } = require('../utils/scoreCalculator');
+const { getCachedBarcodeIndex, invalidateBarcodeIndex } = require('../utils/barcodeIndex');
+const { sendIfNotModified } = require('../utils/httpCache');
+const { sendNegotiated, encodeList, encodeProducts, encodeBatch, encodeProduct } = require('../utils/productPack');
+
+// Seconds a client may reuse a response before revalidating it
+const DETAIL_MAX_AGE = 300;
+const SEARCH_MAX_AGE = 60;
+
+// ?view=summary on list endpoints returns only what a list row shows, without
+// ingredients, nutrition or additives; detail comes from /products/:id
+const VIEWS = ['full', 'summary'];
+const SUMMARY_FIELDS = '_id barcode name brand imageUrl score nutriScore isOrganic updatedAt';
+
+function parseView(req) {
+  const view = req.query.view || 'full';
+  return VIEWS.includes(view) ? view : null;
+}
+
+function toSummary(product) {
+  const { _id, barcode, name, brand, imageUrl, score, nutriScore, isOrganic } = product;
+  return { _id, barcode, name, brand, imageUrl, score, nutriScore, isOrganic };
+}
 
 // Helper to add score info to product response
 function enrichProductWithScore(product) {
@@ -18,20 +41,23 @@ exports.getAllProducts = async (req, res) => {
   try {
     const limit = Math.min(parseInt(req.query.limit) || 20, 100);
     const offset = parseInt(req.query.offset) || 0;
+    const view = parseView(req);
+    if (!view) return res.status(400).json({ error: `view must be one of ${VIEWS.join(', ')}` });
 
-    const [products, count] = await Promise.all([
-      Product.find().sort({ _id: -1 }).skip(offset).limit(limit),
-      Product.countDocuments()
-    ]);
+    const page = Product.find().sort({ _id: -1 }).skip(offset).limit(limit);
+    if (view === 'summary') page.select(SUMMARY_FIELDS).lean();
+    const [products, count] = await Promise.all([page, Product.countDocuments()]);
 
-    const enriched = products.map(enrichProductWithScore);
-    res.json({
-      products: enriched,
+    // Deletions elsewhere shift the page, so the total is part of the validator
+    if (sendIfNotModified(req, res, `list:${view}:${limit}:${offset}:${count}`, products)) return;
+
+    sendNegotiated(req, res, {
+      products: products.map(view === 'summary' ? toSummary : enrichProductWithScore),
       total: count,
       limit,
       offset,
       hasMore: offset + products.length < count
-    });
+    }, encodeList);
   } catch (error) {
     res.status(500).json({ error: error.message });
   }
@@ -41,7 +67,38 @@ exports.getProductById = async (req, res) => {
   try {
     const product = await Product.findById(req.params.id);
     if (!product) return res.status(404).json({ error: 'Product not found' });
-    res.json(enrichProductWithScore(product));
+    if (sendIfNotModified(req, res, 'product', [product], DETAIL_MAX_AGE)) return;
+    sendNegotiated(req, res, enrichProductWithScore(product), encodeProduct);
+  } catch (error) {
+    res.status(500).json({ error: error.message });
+  }
+};
+
+// Many products in one round trip: body { ids: [...], barcodes: [...] }, at most
+// MAX_BATCH keys in total. Keys that match nothing are listed as missing.
+const MAX_BATCH = 200;
+
+exports.getProductsBatch = async (req, res) => {
+  try {
+    const ids = Array.isArray(req.body.ids) ? req.body.ids.map(String) : [];
+    const barcodes = Array.isArray(req.body.barcodes) ? req.body.barcodes.map(String) : [];
+    if (ids.length + barcodes.length > MAX_BATCH) {
+      return res.status(400).json({ error: `At most ${MAX_BATCH} ids and barcodes per batch` });
+    }
+
+    const validIds = ids.filter((id) => mongoose.isValidObjectId(id));
+    const clauses = [];
+    if (validIds.length) clauses.push({ _id: { $in: validIds } });
+    if (barcodes.length) clauses.push({ barcode: { $in: barcodes } });
+    const products = clauses.length ? await Product.find({ $or: clauses }) : [];
+
+    const foundIds = new Set(products.map((p) => p._id.toString()));
+    const foundBarcodes = new Set(products.map((p) => p.barcode));
+    sendNegotiated(req, res, {
+      products: products.map(enrichProductWithScore),
+      missingIds: ids.filter((id) => !foundIds.has(id)),
+      missingBarcodes: barcodes.filter((code) => !foundBarcodes.has(code))
+    }, encodeBatch);
   } catch (error) {
     res.status(500).json({ error: error.message });
   }
@@ -52,7 +109,8 @@ exports.getProductByBarcode = async (req, res) => {
     const product = await Product.findOne({ barcode: req.params.code });
     
     if (product) {
-      return res.json(enrichProductWithScore(product));
+      if (sendIfNotModified(req, res, 'product', [product], DETAIL_MAX_AGE)) return;
+      return sendNegotiated(req, res, enrichProductWithScore(product), encodeProduct);
     }
 
     res.status(404).json({ error: 'Product not found' });
@@ -61,6 +119,71 @@ exports.getProductByBarcode = async (req, res) => {
   }
 };
 
+// Binary snapshot of every product with a numeric barcode, for offline scanning
+exports.getBarcodeIndex = async (req, res) => {
+  try {
+    const { buffer, etag } = await getCachedBarcodeIndex(() =>
+      Product.find({ barcode: { $regex: /^\d{1,18}$/ } })
+        .select('barcode name brand imageUrl score nutriScore isOrganic')
+        .lean()
+    );
+
+    res.set('ETag', etag);
+    res.set('Cache-Control', 'no-store'); // The app keeps its own copy
+    if (req.get('If-None-Match') === etag) return res.status(304).end();
+    res.set('Content-Type', 'application/octet-stream');
+    res.set('Content-Length', buffer.length);
+    res.send(buffer);
+  } catch (error) {
+    res.status(500).json({ error: error.message });
+  }
+};
+
+// Changes after a (time, id) cursor, for clients keeping an offline cache in sync.
+// Updated products and deletion tombstones are merged into one stream ordered by
+// (updatedAt | deletedAt, _id), so a page boundary never skips or repeats a change.
+exports.getChanges = async (req, res) => {
+  try {
+    const limit = Math.min(parseInt(req.query.limit) || 500, 1000);
+    const since = new Date(parseInt(req.query.since) || 0);
+    const afterId = req.query.afterId;
+
+    const after = (field) => {
+      if (!afterId) return { [field]: { $gt: since } };
+      return {
+        $or: [
+          { [field]: { $gt: since } },
+          { [field]: since, _id: { $gt: afterId } }
+        ]
+      };
+    };
+
+    const [products, tombstones] = await Promise.all([
+      Product.find(after('updatedAt')).sort({ updatedAt: 1, _id: 1 }).limit(limit + 1),
+      DeletedProduct.find(after('deletedAt')).sort({ deletedAt: 1, _id: 1 }).limit(limit + 1).lean()
+    ]);
+
+    const changes = [
+      ...products.map((p) => ({ at: p.updatedAt.getTime(), id: p._id.toString(), product: p })),
+      ...tombstones.map((t) => ({ at: t.deletedAt.getTime(), id: t._id.toString(), deletedId: t.productId.toString() }))
+    ].sort((a, b) => a.at - b.at || (a.id < b.id ? -1 : a.id > b.id ? 1 : 0));
+
+    const page = changes.slice(0, limit);
+    const last = page[page.length - 1];
+
+    res.set('Cache-Control', 'no-store');
+    res.json({
+      products: page.filter((c) => c.product).map((c) => enrichProductWithScore(c.product)),
+      deleted: page.filter((c) => c.deletedId).map((c) => c.deletedId),
+      nextSince: last ? last.at : since.getTime(),
+      nextAfterId: last ? last.id : afterId || null,
+      hasMore: changes.length > limit
+    });
+  } catch (error) {
+    res.status(500).json({ error: error.message });
+  }
+};
+
 exports.getAlternatives = async (req, res) => {
   try {
     const product = await Product.findById(req.params.id);
@@ -74,7 +197,8 @@ exports.getAlternatives = async (req, res) => {
       .sort({ score: -1 })
       .limit(5);
 
-    res.json(alternatives.map(enrichProductWithScore));
+    if (sendIfNotModified(req, res, 'alternatives', [product, ...alternatives], DETAIL_MAX_AGE)) return;
+    sendNegotiated(req, res, alternatives.map(enrichProductWithScore), encodeProducts);
   } catch (error) {
     res.status(500).json({ error: error.message });
   }
@@ -94,6 +218,7 @@ exports.createProduct = async (req, res) => {
     product.nutriScore = getNutriScoreGrade(score);
 
     await product.save();
+    invalidateBarcodeIndex();
     res.status(201).json(enrichProductWithScore(product));
   } catch (error) {
     res.status(400).json({ error: error.message });
@@ -117,6 +242,7 @@ exports.updateProduct = async (req, res) => {
     product.nutriScore = getNutriScoreGrade(score);
 
     await product.save();
+    invalidateBarcodeIndex();
     res.json(enrichProductWithScore(product));
   } catch (error) {
     res.status(400).json({ error: error.message });
@@ -127,6 +253,8 @@ exports.deleteProduct = async (req, res) => {
   try {
     const product = await Product.findByIdAndDelete(req.params.id);
     if (!product) return res.status(404).json({ error: 'Product not found' });
+    await DeletedProduct.create({ productId: product._id });
+    invalidateBarcodeIndex();
     
     res.json({ message: 'Product deleted' });
   } catch (error) {
@@ -137,14 +265,20 @@ exports.deleteProduct = async (req, res) => {
 exports.searchProducts = async (req, res) => {
   try {
     const query = req.params.query;
-    const products = await Product.find({
+    const view = parseView(req);
+    if (!view) return res.status(400).json({ error: `view must be one of ${VIEWS.join(', ')}` });
+
+    const search = Product.find({
       $or: [
         { name: { $regex: query, $options: 'i' } },
         { brand: { $regex: query, $options: 'i' } }
       ]
     }).limit(50);
-    
-    res.json(products.map(enrichProductWithScore));
+    if (view === 'summary') search.select(SUMMARY_FIELDS).lean();
+    const products = await search;
+
+    if (sendIfNotModified(req, res, `search:${view}:${query}`, products, SEARCH_MAX_AGE)) return;
+    sendNegotiated(req, res, products.map(view === 'summary' ? toSummary : enrichProductWithScore), encodeProducts);
   } catch (error) {
     res.status(500).json({ error: error.message });
   }
@@ -0,0 +1,14 @@
+const mongoose = require('mongoose');
+
+// Tombstone left behind when a product is deleted, so clients doing a delta
+// sync (GET /products/changes) learn about the deletion
+const deletedProductSchema = new mongoose.Schema({
+  productId: { type: mongoose.Schema.Types.ObjectId, required: true },
+  deletedAt: { type: Date, required: true, default: Date.now }
+});
+
+deletedProductSchema.index({ deletedAt: 1, _id: 1 });
+
+const DeletedProduct = mongoose.model('DeletedProduct', deletedProductSchema);
+
+module.exports = DeletedProduct;
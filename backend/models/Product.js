@@ -42,6 +42,9 @@ const productSchema = new mongoose.Schema({
 // Text index for search
 productSchema.index({ name: 'text', brand: 'text' });
 
+// Cursor index for delta sync (GET /products/changes)
+productSchema.index({ updatedAt: 1, _id: 1 });
+
 // Virtual for id (to match Sequelize response format)
 productSchema.virtual('id').get(function() {
   return this._id.toHexString();
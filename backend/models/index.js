@@ -1,8 +1,10 @@
 const { connectDB, mongoose } = require('../config/database');
 const Product = require('./Product');
+const DeletedProduct = require('./DeletedProduct');
 
 module.exports = {
   connectDB,
   mongoose,
-  Product
+  Product,
+  DeletedProduct
 };
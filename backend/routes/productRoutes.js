@@ -4,9 +4,12 @@ const productController = require('../controllers/productController');
 
 router.get('/', productController.getAllProducts);
 router.get('/search/:query', productController.searchProducts);
+router.get('/barcode-index', productController.getBarcodeIndex);
+router.get('/changes', productController.getChanges);
 router.get('/barcode/:code', productController.getProductByBarcode);
 router.get('/:id', productController.getProductById);
 router.get('/:id/alternatives', productController.getAlternatives);
+router.post('/batch', productController.getProductsBatch);
 router.post('/', productController.createProduct);
 router.put('/:id', productController.updateProduct);
 router.delete('/:id', productController.deleteProduct);
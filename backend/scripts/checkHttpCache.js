@@ -0,0 +1,58 @@
+/**
+ * Checks conditional revalidation against a running server: fetches each
+ * endpoint once, then again with the validators it returned, and reports how
+ * many repeats came back as 304 Not Modified.
+ * Run with: npm run check-cache [-- http://localhost:3000]
+ */
+const baseUrl = (process.argv[2] || "http://localhost:3000").replace(/\/$/, "");
+
+async function revalidate(path) {
+    const first = await fetch(baseUrl + path);
+    await first.arrayBuffer();
+    if (!first.ok) return { path, status: first.status };
+
+    const headers = {};
+    const etag = first.headers.get("etag");
+    const lastModified = first.headers.get("last-modified");
+    if (etag) headers["If-None-Match"] = etag;
+    if (lastModified) headers["If-Modified-Since"] = lastModified;
+
+    const second = await fetch(baseUrl + path, { headers });
+    const bytes = (await second.arrayBuffer()).byteLength;
+    return { path, status: second.status, etag, lastModified, cacheControl: first.headers.get("cache-control"), bytes };
+}
+
+async function checkHttpCache() {
+    try {
+        const list = await (await fetch(`${baseUrl}/products?limit=5`)).json();
+        const product = (list.products || [])[0];
+        if (!product) {
+            console.log("No products on the server, nothing to check.");
+            process.exit(1);
+        }
+
+        const paths = [
+            "/products?limit=5",
+            `/products/${product._id}`,
+            `/products/${product._id}/alternatives`,
+            `/products/search/${encodeURIComponent((product.name || "a").slice(0, 3))}`
+        ];
+        if (product.barcode) paths.push(`/products/barcode/${product.barcode}`);
+
+        let notModified = 0;
+        for (const path of paths) {
+            const result = await revalidate(path);
+            if (result.status === 304) notModified++;
+            console.log(`${result.status} ${result.path}  etag=${result.etag} cache-control=${result.cacheControl} bytes=${result.bytes}`);
+        }
+
+        console.log(`\n${notModified}/${paths.length} repeat requests answered with 304.`);
+        process.exit(notModified === paths.length ? 0 : 1);
+
+    } catch (err) {
+        console.error("Error:", err.message);
+        process.exit(1);
+    }
+}
+
+checkHttpCache();
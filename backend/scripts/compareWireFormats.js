@@ -0,0 +1,64 @@
+/**
+ * Compares JSON and product pack responses from a running server: fetches the
+ * same 100-product page (full and view=summary) and a batch of its ids in both
+ * formats and reports the body size, raw and gzipped, and the request time.
+ * Run with: npm run compare-formats [-- http://localhost:3000]
+ */
+const zlib = require("zlib");
+const { PACK_CONTENT_TYPE } = require("../utils/productPack");
+
+const baseUrl = (process.argv[2] || "http://localhost:3000").replace(/\/$/, "");
+const ACCEPT = { json: "application/json", pack: PACK_CONTENT_TYPE };
+
+async function measure(path, format, init = {}) {
+    const started = process.hrtime.bigint();
+    const response = await fetch(baseUrl + path, {
+        ...init,
+        headers: { ...init.headers, Accept: ACCEPT[format] }
+    });
+    const body = Buffer.from(await response.arrayBuffer());
+    const ms = Number(process.hrtime.bigint() - started) / 1e6;
+    return {
+        status: response.status,
+        contentType: response.headers.get("content-type"),
+        bytes: body.length,
+        gzipBytes: zlib.gzipSync(body).length,
+        ms
+    };
+}
+
+async function compare(label, path, init) {
+    const json = await measure(path, "json", init);
+    const pack = await measure(path, "pack", init);
+    console.log(label);
+    for (const [format, result] of [["json", json], ["pack", pack]]) {
+        console.log(`  ${format}  ${result.status}  ${result.bytes} bytes  ${result.gzipBytes} gzipped  ${result.ms.toFixed(1)} ms  (${result.contentType})`);
+    }
+    console.log(`  pack is ${(json.bytes / pack.bytes).toFixed(1)}x smaller raw, ${(json.gzipBytes / pack.gzipBytes).toFixed(1)}x gzipped\n`);
+}
+
+async function compareWireFormats() {
+    try {
+        const list = await (await fetch(`${baseUrl}/products?limit=100`)).json();
+        const ids = (list.products || []).map((p) => p._id);
+        if (ids.length === 0) {
+            console.log("No products on the server, nothing to compare.");
+            process.exit(1);
+        }
+
+        await compare(`GET /products?limit=100 (${ids.length} products)`, "/products?limit=100");
+        await compare(`GET /products?limit=100&view=summary (${ids.length} products)`, "/products?limit=100&view=summary");
+        await compare(`POST /products/batch (${ids.length} ids)`, "/products/batch", {
+            method: "POST",
+            headers: { "Content-Type": "application/json" },
+            body: JSON.stringify({ ids })
+        });
+        process.exit(0);
+
+    } catch (err) {
+        console.error("Error:", err.message);
+        process.exit(1);
+    }
+}
+
+compareWireFormats();
@@ -0,0 +1,113 @@
+/**
+ * Binary barcode index used by the Android app for offline lookups.
+ *
+ * Layout (big-endian):
+ *   header   magic "PIDX" (int32), version (int32), count (int32), builtAt (int64 ms)
+ *   entries  count x [barcode as int64, summary offset (int32)], sorted by barcode
+ *   summary  12-byte ObjectId, score (int16), nutriScore (ASCII byte, 0 = none),
+ *            flags (byte, bit 0 = organic), then name, brand, imageUrl as
+ *            uint16 length + UTF-8 bytes
+ *
+ * Barcodes are keyed by numeric value, so UPC-A "012345678905" and its EAN-13
+ * form "0012345678905" share one entry.
+ */
+
+const crypto = require('crypto');
+
+const MAGIC = 0x50494458; // "PIDX"
+const VERSION = 1;
+const HEADER_SIZE = 20;
+const ENTRY_SIZE = 12;
+const MAX_STRING_BYTES = 0xffff;
+const NUMERIC_BARCODE = /^\d{1,18}$/;
+
+function encodeString(value) {
+  const bytes = Buffer.from(value || '', 'utf8');
+  return bytes.length > MAX_STRING_BYTES ? bytes.subarray(0, MAX_STRING_BYTES) : bytes;
+}
+
+function encodeSummary(product) {
+  const name = encodeString(product.name);
+  const brand = encodeString(product.brand);
+  const imageUrl = encodeString(product.imageUrl);
+  const buf = Buffer.alloc(12 + 2 + 1 + 1 + 2 + name.length + 2 + brand.length + 2 + imageUrl.length);
+
+  let pos = 0;
+  Buffer.from(product._id.toString(), 'hex').copy(buf, pos);
+  pos += 12;
+  buf.writeInt16BE(Math.round(product.score || 0), pos);
+  pos += 2;
+  buf.writeUInt8(product.nutriScore ? product.nutriScore.charCodeAt(0) : 0, pos);
+  pos += 1;
+  buf.writeUInt8(product.isOrganic ? 1 : 0, pos);
+  pos += 1;
+  for (const str of [name, brand, imageUrl]) {
+    buf.writeUInt16BE(str.length, pos);
+    pos += 2;
+    str.copy(buf, pos);
+    pos += str.length;
+  }
+  return buf;
+}
+
+function buildBarcodeIndex(products, builtAt = Date.now()) {
+  const byKey = new Map();
+  for (const product of products) {
+    if (!product.barcode || !NUMERIC_BARCODE.test(product.barcode)) continue;
+    const key = BigInt(product.barcode);
+    if (!byKey.has(key)) byKey.set(key, product);
+  }
+
+  const keys = [...byKey.keys()].sort((a, b) => (a < b ? -1 : a > b ? 1 : 0));
+  const summaries = keys.map((key) => encodeSummary(byKey.get(key)));
+
+  const header = Buffer.alloc(HEADER_SIZE);
+  header.writeInt32BE(MAGIC, 0);
+  header.writeInt32BE(VERSION, 4);
+  header.writeInt32BE(keys.length, 8);
+  header.writeBigInt64BE(BigInt(builtAt), 12);
+
+  const entries = Buffer.alloc(keys.length * ENTRY_SIZE);
+  let offset = HEADER_SIZE + entries.length;
+  keys.forEach((key, i) => {
+    entries.writeBigInt64BE(key, i * ENTRY_SIZE);
+    entries.writeInt32BE(offset, i * ENTRY_SIZE + 8);
+    offset += summaries[i].length;
+  });
+
+  return Buffer.concat([header, entries, ...summaries]);
+}
+
+// Building the index reads every product, so the result (and its ETag) is kept
+// until a write through this server invalidates it. Writes made by other
+// processes (importOFF, recalculateScores) aren't seen, hence the max age.
+const CACHE_MAX_AGE_MS = 10 * 60 * 1000;
+let cached = null; // { promise, createdAt }
+
+/**
+ * Resolves to { buffer, etag }, building it with loadProducts() only when there
+ * is no current copy. Concurrent requests share one build.
+ *
+ * @param {function} loadProducts resolves to the products to index
+ */
+function getCachedBarcodeIndex(loadProducts) {
+  if (cached && Date.now() - cached.createdAt < CACHE_MAX_AGE_MS) return cached.promise;
+  const promise = loadProducts().then((products) => {
+    const buffer = buildBarcodeIndex(products);
+    const etag = `"pidx-${crypto.createHash('sha1').update(buffer).digest('base64url')}"`;
+    return { buffer, etag };
+  });
+  const entry = { promise, createdAt: Date.now() };
+  cached = entry;
+  promise.catch(() => {
+    if (cached === entry) cached = null;
+  });
+  return promise;
+}
+
+// Call after any product write; a build still in flight is not kept either
+function invalidateBarcodeIndex() {
+  cached = null;
+}
+
+module.exports = { buildBarcodeIndex, getCachedBarcodeIndex, invalidateBarcodeIndex, MAGIC, VERSION };
@@ -0,0 +1,84 @@
+/**
+ * Fault injection for exercising client resilience (timeouts, retries, circuit
+ * breaking, hedging) against a local server. Off unless one of these is set:
+ *
+ *   FAULT_LATENCY_MS         fixed delay added before handling a request
+ *   FAULT_LATENCY_JITTER_MS  extra random delay, uniform in [0, value]
+ *   FAULT_SLOW_RATE          fraction (0-1) of requests that get the delay; default 1
+ *   FAULT_ERROR_RATE         fraction answered with 503
+ *   FAULT_DROP_RATE          fraction whose connection is closed with no response
+ *   FAULT_PATH               regex; only matching paths are affected (default all)
+ *
+ * A request can also ask for a fault itself with `X-Fault: error | drop |
+ * delay=<ms>`, for deterministic tests; the header is ignored while fault
+ * injection is off.
+ */
+
+const rate = (value) => {
+  const n = Number(value);
+  return Number.isFinite(n) ? Math.min(Math.max(n, 0), 1) : 0;
+};
+
+const millis = (value) => {
+  const n = Number(value);
+  return Number.isFinite(n) && n > 0 ? n : 0;
+};
+
+function readConfig(env) {
+  return {
+    latencyMs: millis(env.FAULT_LATENCY_MS),
+    jitterMs: millis(env.FAULT_LATENCY_JITTER_MS),
+    slowRate: env.FAULT_SLOW_RATE === undefined ? 1 : rate(env.FAULT_SLOW_RATE),
+    errorRate: rate(env.FAULT_ERROR_RATE),
+    dropRate: rate(env.FAULT_DROP_RATE),
+    path: env.FAULT_PATH ? new RegExp(env.FAULT_PATH) : null
+  };
+}
+
+function isEnabled(config) {
+  return config.latencyMs > 0 || config.jitterMs > 0 || config.errorRate > 0 || config.dropRate > 0;
+}
+
+// The fault for this request, from its X-Fault header or the configured rates
+function pickFault(req, config, random) {
+  const requested = req.get('X-Fault');
+  if (requested) {
+    if (requested === 'error' || requested === 'drop') return { type: requested, delayMs: 0 };
+    const match = /^delay=(\d+)$/.exec(requested);
+    if (match) return { type: 'delay', delayMs: Number(match[1]) };
+  }
+
+  let delayMs = 0;
+  if (random() < config.slowRate) delayMs = config.latencyMs + random() * config.jitterMs;
+  const roll = random();
+  if (roll < config.dropRate) return { type: 'drop', delayMs };
+  if (roll < config.dropRate + config.errorRate) return { type: 'error', delayMs };
+  return { type: delayMs > 0 ? 'delay' : 'none', delayMs };
+}
+
+/**
+ * @param {object} env defaults to process.env
+ * @param {function} random defaults to Math.random, injectable for repeatable runs
+ */
+function faultInjection(env = process.env, random = Math.random) {
+  const config = readConfig(env);
+  if (!isEnabled(config)) return (req, res, next) => next();
+
+  console.warn('Fault injection enabled:', JSON.stringify({ ...config, path: String(config.path) }));
+  return (req, res, next) => {
+    if (config.path && !config.path.test(req.path)) return next();
+    const fault = pickFault(req, config, random);
+    const apply = () => {
+      if (fault.type === 'drop') return req.socket.destroy();
+      if (fault.type === 'error') {
+        res.set('Retry-After', '1');
+        return res.status(503).json({ message: 'Injected fault' });
+      }
+      return next();
+    };
+    if (fault.delayMs > 0) setTimeout(apply, fault.delayMs);
+    else apply();
+  };
+}
+
+module.exports = faultInjection;
@@ -0,0 +1,57 @@
+/**
+ * Validators for product responses, so clients can revalidate with
+ * If-None-Match / If-Modified-Since and get a 304 instead of the full body.
+ *
+ * ETags are derived from document ids and updatedAt rather than the response
+ * body, so a 304 is answered before any enrichment or serialization.
+ */
+
+const crypto = require('crypto');
+const { wantsPack } = require('./productPack');
+
+// Bump when enrichProductWithScore output changes for the same document
+const RESPONSE_VERSION = 1;
+
+function maxUpdatedAt(products) {
+  let max = 0;
+  for (const product of products) {
+    const time = product.updatedAt ? new Date(product.updatedAt).getTime() : 0;
+    if (time > max) max = time;
+  }
+  return max;
+}
+
+function etagFor(kind, products) {
+  const hash = crypto.createHash('sha1');
+  hash.update(`${kind}:${RESPONSE_VERSION}`);
+  for (const product of products) {
+    const time = product.updatedAt ? new Date(product.updatedAt).getTime() : 0;
+    hash.update(`|${product._id}:${time}`);
+  }
+  return `"${hash.digest('base64url')}"`;
+}
+
+/**
+ * Sets ETag, Last-Modified and Cache-Control for a response built from the
+ * given products. Returns true if the request's validators match, in which
+ * case a 304 has already been sent.
+ *
+ * @param {string} kind distinguishes responses built from the same products
+ * @param {number} maxAge seconds the client may reuse it without revalidating
+ */
+function sendIfNotModified(req, res, kind, products, maxAge = 0) {
+  // A packed body and a JSON body of the same products are separate representations
+  res.vary('Accept');
+  res.set('ETag', etagFor(`${kind}:${wantsPack(req) ? 'pack' : 'json'}`, products));
+  const lastModified = maxUpdatedAt(products);
+  if (lastModified > 0) res.set('Last-Modified', new Date(lastModified).toUTCString());
+  res.set('Cache-Control', maxAge > 0 ? `private, max-age=${maxAge}` : 'private, no-cache');
+
+  if (req.fresh) {
+    res.status(304).end();
+    return true;
+  }
+  return false;
+}
+
+module.exports = { sendIfNotModified, etagFor };
@@ -0,0 +1,291 @@
+/**
+ * Compact binary encoding of product responses ("product pack"), sent instead
+ * of JSON when the client lists PACK_CONTENT_TYPE in its Accept header.
+ *
+ * Layout (big-endian, varints are unsigned LEB128):
+ *   header   magic "PPAK" (int32), version (int32), kind (byte, see KIND)
+ *   strings  varint count, then count x [varint byte length, UTF-8 bytes]
+ *   body     depends on kind:
+ *            LIST     varint total, varint limit, varint offset, byte hasMore, products
+ *            PRODUCTS products
+ *            BATCH    products, string refs (missingIds), string refs (missingBarcodes)
+ *            PRODUCT  product
+ *
+ * Every string is stored once in the table and referenced by its varint index,
+ * so field names disappear and repeated values (brands, grades, risk levels,
+ * additive names, units) cost a byte or two.
+ *
+ *   products     varint count, then products
+ *   string refs  varint count, then refs
+ *   product      varint field mask (FIELD), then the present fields in FIELD order:
+ *                id as 12 raw bytes (ID_IS_OBJECT_ID) or a string ref, string refs,
+ *                score as float64, calculatedScore as zigzag varint, scoreCategory
+ *                as label ref + color ref (each ref + 1, 0 = null), nutrition,
+ *                additives. isOrganic is the ORGANIC bit itself.
+ *   nutrition    varint mask over NUTRITION_FIELDS (bit i = field i present), the
+ *                numbers as float64 in that order, then servingUnit ref if bit 8
+ *   additives    varint count, then per additive a varint mask over ADDITIVE_FIELDS:
+ *                id as zigzag varint, then code, name, riskLevel, description refs
+ */
+
+const MAGIC = 0x5050414b; // "PPAK"
+const VERSION = 1;
+const PACK_CONTENT_TYPE = 'application/x-product-pack';
+
+const KIND = { LIST: 1, PRODUCTS: 2, BATCH: 3, PRODUCT: 4 };
+
+const FIELD = {
+  ID: 1 << 0,
+  BARCODE: 1 << 1,
+  NAME: 1 << 2,
+  BRAND: 1 << 3,
+  IMAGE_URL: 1 << 4,
+  INGREDIENTS: 1 << 5,
+  SCORE: 1 << 6,
+  CALCULATED_SCORE: 1 << 7,
+  ORGANIC: 1 << 8,
+  NUTRI_SCORE: 1 << 9,
+  NUTRI_SCORE_GRADE: 1 << 10,
+  SCORE_CATEGORY: 1 << 11,
+  NUTRITION: 1 << 12,
+  ADDITIVES: 1 << 13,
+  ID_IS_OBJECT_ID: 1 << 14
+};
+
+const NUTRITION_FIELDS = ['calories', 'sugar', 'fat', 'saturatedFat', 'salt', 'protein', 'fiber', 'servingSize'];
+const SERVING_UNIT_BIT = 1 << NUTRITION_FIELDS.length;
+const ADDITIVE_FIELDS = ['id', 'code', 'name', 'riskLevel', 'description'];
+const OBJECT_ID = /^[0-9a-f]{24}$/i;
+
+class PackWriter {
+  constructor() {
+    this.buf = Buffer.alloc(16 * 1024);
+    this.pos = 0;
+    this.strings = new Map();
+  }
+
+  ensure(bytes) {
+    if (this.pos + bytes <= this.buf.length) return;
+    const grown = Buffer.alloc(Math.max(this.buf.length * 2, this.pos + bytes));
+    this.buf.copy(grown, 0, 0, this.pos);
+    this.buf = grown;
+  }
+
+  byte(value) {
+    this.ensure(1);
+    this.buf[this.pos++] = value;
+  }
+
+  varint(value) {
+    let v = value >>> 0;
+    this.ensure(5);
+    while (v >= 0x80) {
+      this.buf[this.pos++] = (v & 0x7f) | 0x80;
+      v >>>= 7;
+    }
+    this.buf[this.pos++] = v;
+  }
+
+  zigzag(value) {
+    const v = Math.trunc(value) | 0;
+    this.varint((v << 1) ^ (v >> 31));
+  }
+
+  double(value) {
+    this.ensure(8);
+    this.buf.writeDoubleBE(value, this.pos);
+    this.pos += 8;
+  }
+
+  raw(bytes) {
+    this.ensure(bytes.length);
+    bytes.copy(this.buf, this.pos);
+    this.pos += bytes.length;
+  }
+
+  ref(value) {
+    const str = String(value);
+    let index = this.strings.get(str);
+    if (index === undefined) {
+      index = this.strings.size;
+      this.strings.set(str, index);
+    }
+    this.varint(index);
+  }
+
+  // null-able ref: 0 = null, otherwise index + 1
+  optionalRef(value) {
+    if (value === null || value === undefined) {
+      this.varint(0);
+      return;
+    }
+    const str = String(value);
+    let index = this.strings.get(str);
+    if (index === undefined) {
+      index = this.strings.size;
+      this.strings.set(str, index);
+    }
+    this.varint(index + 1);
+  }
+
+  finish(kind) {
+    const table = new PackWriter();
+    table.varint(this.strings.size);
+    for (const str of this.strings.keys()) {
+      const bytes = Buffer.from(str, 'utf8');
+      table.varint(bytes.length);
+      table.raw(bytes);
+    }
+    const header = Buffer.alloc(9);
+    header.writeInt32BE(MAGIC, 0);
+    header.writeInt32BE(VERSION, 4);
+    header.writeUInt8(kind, 8);
+    return Buffer.concat([header, table.buf.subarray(0, table.pos), this.buf.subarray(0, this.pos)]);
+  }
+}
+
+const isString = (value) => typeof value === 'string';
+const isNumber = (value) => typeof value === 'number' && Number.isFinite(value);
+
+function writeProduct(w, product) {
+  const id = product._id !== undefined && product._id !== null ? String(product._id) : null;
+  let mask = 0;
+  if (id !== null) mask |= FIELD.ID | (OBJECT_ID.test(id) ? FIELD.ID_IS_OBJECT_ID : 0);
+  if (isString(product.barcode)) mask |= FIELD.BARCODE;
+  if (isString(product.name)) mask |= FIELD.NAME;
+  if (isString(product.brand)) mask |= FIELD.BRAND;
+  if (isString(product.imageUrl)) mask |= FIELD.IMAGE_URL;
+  if (isString(product.ingredients)) mask |= FIELD.INGREDIENTS;
+  if (isNumber(product.score)) mask |= FIELD.SCORE;
+  if (isNumber(product.calculatedScore)) mask |= FIELD.CALCULATED_SCORE;
+  if (product.isOrganic === true) mask |= FIELD.ORGANIC;
+  if (isString(product.nutriScore)) mask |= FIELD.NUTRI_SCORE;
+  if (isString(product.nutriScoreGrade)) mask |= FIELD.NUTRI_SCORE_GRADE;
+  if (product.scoreCategory) mask |= FIELD.SCORE_CATEGORY;
+  if (product.nutrition) mask |= FIELD.NUTRITION;
+  if (Array.isArray(product.additives)) mask |= FIELD.ADDITIVES;
+  w.varint(mask);
+
+  if (mask & FIELD.ID) {
+    if (mask & FIELD.ID_IS_OBJECT_ID) w.raw(Buffer.from(id, 'hex'));
+    else w.ref(id);
+  }
+  if (mask & FIELD.BARCODE) w.ref(product.barcode);
+  if (mask & FIELD.NAME) w.ref(product.name);
+  if (mask & FIELD.BRAND) w.ref(product.brand);
+  if (mask & FIELD.IMAGE_URL) w.ref(product.imageUrl);
+  if (mask & FIELD.INGREDIENTS) w.ref(product.ingredients);
+  if (mask & FIELD.SCORE) w.double(product.score);
+  if (mask & FIELD.CALCULATED_SCORE) w.zigzag(product.calculatedScore);
+  if (mask & FIELD.NUTRI_SCORE) w.ref(product.nutriScore);
+  if (mask & FIELD.NUTRI_SCORE_GRADE) w.ref(product.nutriScoreGrade);
+  if (mask & FIELD.SCORE_CATEGORY) {
+    w.optionalRef(product.scoreCategory.label);
+    w.optionalRef(product.scoreCategory.color);
+  }
+  if (mask & FIELD.NUTRITION) writeNutrition(w, product.nutrition);
+  if (mask & FIELD.ADDITIVES) {
+    w.varint(product.additives.length);
+    for (const additive of product.additives) writeAdditive(w, additive || {});
+  }
+}
+
+function writeNutrition(w, nutrition) {
+  let mask = 0;
+  NUTRITION_FIELDS.forEach((field, i) => {
+    if (isNumber(nutrition[field])) mask |= 1 << i;
+  });
+  if (isString(nutrition.servingUnit)) mask |= SERVING_UNIT_BIT;
+  w.varint(mask);
+  NUTRITION_FIELDS.forEach((field, i) => {
+    if (mask & (1 << i)) w.double(nutrition[field]);
+  });
+  if (mask & SERVING_UNIT_BIT) w.ref(nutrition.servingUnit);
+}
+
+function writeAdditive(w, additive) {
+  let mask = 0;
+  if (isNumber(additive.id)) mask |= 1;
+  ADDITIVE_FIELDS.slice(1).forEach((field, i) => {
+    if (isString(additive[field])) mask |= 1 << (i + 1);
+  });
+  w.varint(mask);
+  if (mask & 1) w.zigzag(additive.id);
+  ADDITIVE_FIELDS.slice(1).forEach((field, i) => {
+    if (mask & (1 << (i + 1))) w.ref(additive[field]);
+  });
+}
+
+function writeProducts(w, products) {
+  w.varint(products.length);
+  for (const product of products) writeProduct(w, product);
+}
+
+function writeRefs(w, values) {
+  w.varint(values.length);
+  for (const value of values) w.ref(value);
+}
+
+function encodeList({ products, total, limit, offset, hasMore }) {
+  const w = new PackWriter();
+  w.varint(total);
+  w.varint(limit);
+  w.varint(offset);
+  w.byte(hasMore ? 1 : 0);
+  writeProducts(w, products);
+  return w.finish(KIND.LIST);
+}
+
+function encodeProducts(products) {
+  const w = new PackWriter();
+  writeProducts(w, products);
+  return w.finish(KIND.PRODUCTS);
+}
+
+function encodeBatch({ products, missingIds, missingBarcodes }) {
+  const w = new PackWriter();
+  writeProducts(w, products);
+  writeRefs(w, missingIds);
+  writeRefs(w, missingBarcodes);
+  return w.finish(KIND.BATCH);
+}
+
+function encodeProduct(product) {
+  const w = new PackWriter();
+  writeProduct(w, product);
+  return w.finish(KIND.PRODUCT);
+}
+
+// JSON stays the default when Accept is missing or ranks both equally
+function wantsPack(req) {
+  return req.accepts(['application/json', PACK_CONTENT_TYPE]) === PACK_CONTENT_TYPE;
+}
+
+/**
+ * Sends body as a product pack if the client accepts one, JSON otherwise.
+ * Responses differ by Accept, so caches are told to key on it.
+ *
+ * @param {function} encode one of the encodeX functions, matching body's shape
+ */
+function sendNegotiated(req, res, body, encode) {
+  res.vary('Accept');
+  if (wantsPack(req)) {
+    const packed = encode(body);
+    res.set('Content-Type', PACK_CONTENT_TYPE);
+    return res.send(packed);
+  }
+  return res.json(body);
+}
+
+module.exports = {
+  MAGIC,
+  VERSION,
+  PACK_CONTENT_TYPE,
+  KIND,
+  encodeList,
+  encodeProducts,
+  encodeBatch,
+  encodeProduct,
+  wantsPack,
+  sendNegotiated
+};